@@ -62,6 +62,9 @@ dependencies {
     // Gson
     implementation("com.google.code.gson:gson:${property("gsonVersion")}")
 
+    // Cache
+    implementation("com.github.ben-manes.caffeine:caffeine")
+
     // Test
     runtimeOnly("com.h2database:h2")
 
@@ -1,6 +1,7 @@
 package com.arcadex.api.aichat.service;
 
 import com.arcadex.api.aichat.dto.AiChatResponse;
+import com.arcadex.api.config.http.OutboundHttpClient;
 import com.arcadex.api.playablecharacter.dto.PlayableCharacterGirGenerateRequest;
 import com.arcadex.api.playablecharacter.dto.PlayableCharacterGirGenerateResponse;
 import com.arcadex.api.playablecharacter.service.PlayableCharacterGirService;
@@ -14,7 +15,6 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 
@@ -22,12 +22,11 @@ import java.net.http.HttpResponse;
 public class AiChatService {
 
     private static final Gson gson = new Gson();
+    private static final String LLM_DESTINATION = "openai";
     private static final String CHAT_COMPLETIONS_PATH = "chat/completions";
     private static final String GIR_TOOL_NAME = "generate_playable_character_gir";
 
-    private final HttpClient httpClient = HttpClient.newBuilder()
-            .version(HttpClient.Version.HTTP_1_1)
-            .build();
+    private final OutboundHttpClient httpClient;
 
     private final PlayableCharacterGirService playableCharacterGirService;
 
@@ -37,8 +36,9 @@ public class AiChatService {
     @Value("${ai.openai.api-key}")
     private String apiKey;
 
-    public AiChatService(PlayableCharacterGirService playableCharacterGirService) {
+    public AiChatService(PlayableCharacterGirService playableCharacterGirService, OutboundHttpClient httpClient) {
         this.playableCharacterGirService = playableCharacterGirService;
+        this.httpClient = httpClient;
     }
 
     public AiChatResponse chat(String prompt) throws IOException, InterruptedException {
@@ -222,7 +222,7 @@ public class AiChatService {
                 .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(requestBody)))
                 .build();
 
-        HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = httpClient.send(LLM_DESTINATION, httpRequest, HttpResponse.BodyHandlers.ofString());
         if (response.statusCode() != 200) {
             throw new IOException("LLM API returned status " + response.statusCode());
         }
@@ -0,0 +1,26 @@
+package com.arcadex.api.config.game;
+
+import com.arcadex.api.game.service.GameSearchService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prepares the full-text search index before the seed games are written, once Hibernate has
+ * created the {@code games} table.
+ */
+@Component
+@Order(0)
+public class GameSearchIndexInitializer implements CommandLineRunner {
+
+    private final GameSearchService gameSearchService;
+
+    public GameSearchIndexInitializer(GameSearchService gameSearchService) {
+        this.gameSearchService = gameSearchService;
+    }
+
+    @Override
+    public void run(String... args) {
+        gameSearchService.prepareIndex();
+    }
+}
@@ -0,0 +1,191 @@
+package com.arcadex.api.config.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLSession;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The one HTTP client every outbound call goes through. It negotiates HTTP/2 where the peer
+ * supports it, keeps connections pooled across all callers, and runs on virtual threads.
+ *
+ * <p>Calls are grouped by a caller-chosen destination name. Each destination has its own cap on
+ * concurrent requests, its own request timeout and its own limit on how long a call waits for a
+ * free slot under that cap, all configurable under {@code http.client.destinations.<name>}; both
+ * waits are further cut to whatever is left of the current {@link RequestDeadline}. Per
+ * destination it records {@code http.client.requests} (latency to response headers, with a
+ * histogram) and the {@code http.client.in-flight} gauge. A streamed ({@link InputStream})
+ * response holds its concurrency slot until the body is closed, so callers that stream bodies to
+ * slow clients should use a destination of their own.
+ */
+@Component
+public class OutboundHttpClient {
+
+    private final HttpClient httpClient;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final int defaultMaxConcurrent;
+    private final Duration defaultTimeout;
+    private final Duration defaultAcquireTimeout;
+    private final Map<String, Destination> destinations = new ConcurrentHashMap<>();
+
+    public OutboundHttpClient(Environment environment, MeterRegistry meterRegistry,
+                              @Value("${http.client.connect-timeout-ms:5000}") long connectTimeoutMillis,
+                              @Value("${http.client.read-timeout-ms:30000}") long readTimeoutMillis,
+                              @Value("${http.client.acquire-timeout-ms:1000}") long acquireTimeoutMillis,
+                              @Value("${http.client.max-concurrent-per-destination:64}") int maxConcurrent) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.defaultMaxConcurrent = maxConcurrent;
+        this.defaultTimeout = Duration.ofMillis(readTimeoutMillis);
+        this.defaultAcquireTimeout = Duration.ofMillis(acquireTimeoutMillis);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .executor(executor)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public <T> HttpResponse<T> send(String destination, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        Destination target = destinations.computeIfAbsent(destination, this::createDestination);
+        Duration timeout = timeoutFor(target, request);
+
+        // a saturated destination fails fast rather than holding callers for a whole request timeout
+        Duration acquireTimeout = target.acquireTimeout.compareTo(timeout) < 0 ? target.acquireTimeout : timeout;
+        if (!target.slots.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new HttpTimeoutException("No free connection slot for " + destination + " within " + acquireTimeout);
+        }
+        target.inFlight.incrementAndGet();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                target.inFlight.decrementAndGet();
+                target.slots.release();
+            }
+        };
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "IO_ERROR";
+        try {
+            HttpRequest timed = HttpRequest.newBuilder(request, (name, value) -> true).timeout(timeout).build();
+            HttpResponse<T> response = httpClient.send(timed, bodyHandler);
+            outcome = String.valueOf(response.statusCode());
+            if (response.body() instanceof InputStream body) {
+                return streaming(response, body, release);
+            }
+            release.run();
+            return response;
+        } catch (HttpTimeoutException e) {
+            outcome = "TIMEOUT";
+            release.run();
+            throw e;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            release.run();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("http.client.requests")
+                    .tag("destination", destination)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * The destination's timeout, or the request's own if it set a shorter one, cut to the time
+     * left on the current deadline.
+     */
+    private Duration timeoutFor(Destination target, HttpRequest request) throws HttpTimeoutException {
+        Duration timeout = request.timeout()
+                .filter(own -> own.compareTo(target.timeout) < 0)
+                .orElse(target.timeout);
+        Optional<Duration> remaining = RequestDeadline.remaining();
+        if (remaining.isPresent()) {
+            if (remaining.get().isNegative() || remaining.get().isZero()) {
+                throw new HttpTimeoutException("Request deadline exceeded before calling " + request.uri().getHost());
+            }
+            if (remaining.get().compareTo(timeout) < 0) {
+                timeout = remaining.get();
+            }
+        }
+        return timeout;
+    }
+
+    private Destination createDestination(String name) {
+        String prefix = "http.client.destinations." + name + ".";
+        int maxConcurrent = environment.getProperty(prefix + "max-concurrent", Integer.class, defaultMaxConcurrent);
+        Duration timeout = environment.getProperty(prefix + "read-timeout-ms", Long.class)
+                .map(Duration::ofMillis)
+                .orElse(defaultTimeout);
+        Duration acquireTimeout = environment.getProperty(prefix + "acquire-timeout-ms", Long.class)
+                .map(Duration::ofMillis)
+                .orElse(defaultAcquireTimeout);
+
+        Destination destination = new Destination(new Semaphore(maxConcurrent), timeout, acquireTimeout,
+                new AtomicInteger());
+        Gauge.builder("http.client.in-flight", destination.inFlight, AtomicInteger::get)
+                .tag("destination", name)
+                .register(meterRegistry);
+        return destination;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> HttpResponse<T> streaming(HttpResponse<T> response, InputStream body, Runnable release) {
+        InputStream releasing = new FilterInputStream(body) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    release.run();
+                }
+            }
+        };
+        return (HttpResponse<T>) new StreamedResponse((HttpResponse<InputStream>) response, releasing);
+    }
+
+    private record Destination(Semaphore slots, Duration timeout, Duration acquireTimeout, AtomicInteger inFlight) {}
+
+    private record StreamedResponse(HttpResponse<InputStream> response, InputStream body)
+            implements HttpResponse<InputStream> {
+
+        @Override public int statusCode() { return response.statusCode(); }
+        @Override public HttpRequest request() { return response.request(); }
+        @Override public Optional<HttpResponse<InputStream>> previousResponse() { return response.previousResponse(); }
+        @Override public HttpHeaders headers() { return response.headers(); }
+        @Override public Optional<SSLSession> sslSession() { return response.sslSession(); }
+        @Override public URI uri() { return response.uri(); }
+        @Override public HttpClient.Version version() { return response.version(); }
+    }
+}
@@ -0,0 +1,37 @@
+package com.arcadex.api.config.http;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * The point in time by which the inbound request on the current thread must be answered.
+ * {@link OutboundHttpClient} shortens the timeout of every call made on that thread so an
+ * upstream call never outlives the request that needs its result.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Instant> current = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static Optional<Instant> current() {
+        return Optional.ofNullable(current.get());
+    }
+
+    /**
+     * @return the time left until the deadline (possibly negative), or empty if none is set
+     */
+    public static Optional<Duration> remaining() {
+        return current().map(deadline -> Duration.between(Instant.now(), deadline));
+    }
+
+    static void set(Instant deadline) {
+        current.set(deadline);
+    }
+
+    static void clear() {
+        current.remove();
+    }
+}
@@ -0,0 +1,63 @@
+package com.arcadex.api.config.http;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Sets the {@link RequestDeadline} for each inbound request. A client may ask for a tighter
+ * budget with the {@value #BUDGET_HEADER} header; it is capped by
+ * {@code http.server.request-deadline-ms}, which also applies when the header is absent
+ * (0 disables the default).
+ */
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    static final String BUDGET_HEADER = "X-Request-Budget-Ms";
+
+    private final long defaultBudgetMillis;
+
+    public RequestDeadlineFilter(@Value("${http.server.request-deadline-ms:0}") long defaultBudgetMillis) {
+        this.defaultBudgetMillis = defaultBudgetMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long budget = budgetOf(request);
+        if (budget <= 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RequestDeadline.set(Instant.now().plusMillis(budget));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    private long budgetOf(HttpServletRequest request) {
+        String header = request.getHeader(BUDGET_HEADER);
+        if (header == null || header.isBlank()) {
+            return defaultBudgetMillis;
+        }
+        try {
+            long requested = Long.parseLong(header.trim());
+            if (requested <= 0) {
+                return defaultBudgetMillis;
+            }
+            return defaultBudgetMillis > 0 ? Math.min(requested, defaultBudgetMillis) : requested;
+        } catch (NumberFormatException e) {
+            return defaultBudgetMillis;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.arcadex.api.config.redis;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+
+/**
+ * Redis connection for the shared cache tier. Spring Boot's Redis auto-configuration stays
+ * excluded; this only exists when {@code cache.redis.enabled} is set, and callers treat Redis as
+ * optional. Commands fail fast while disconnected instead of queueing, so an outage costs at most
+ * the command timeout.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cache.redis.enabled", havingValue = "true")
+public class RedisConfig {
+
+    @Bean
+    public LettuceConnectionFactory redisConnectionFactory(
+            @Value("${cache.redis.host:localhost}") String host,
+            @Value("${cache.redis.port:6379}") int port,
+            @Value("${cache.redis.password:}") String password,
+            @Value("${cache.redis.timeout-ms:250}") long timeoutMs) {
+        RedisStandaloneConfiguration server = new RedisStandaloneConfiguration(host, port);
+        if (!password.isBlank()) {
+            server.setPassword(password);
+        }
+
+        Duration timeout = Duration.ofMillis(timeoutMs);
+        LettuceClientConfiguration client = LettuceClientConfiguration.builder()
+                .commandTimeout(timeout)
+                .clientOptions(ClientOptions.builder()
+                        .socketOptions(SocketOptions.builder().connectTimeout(timeout).build())
+                        .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                        .build())
+                .build();
+        return new LettuceConnectionFactory(server, client);
+    }
+
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(LettuceConnectionFactory connectionFactory) {
+        return new StringRedisTemplate(connectionFactory);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(LettuceConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        // resubscribes on its own after Redis comes back
+        container.setRecoveryInterval(5000);
+        return container;
+    }
+}
@@ -0,0 +1,13 @@
+package com.arcadex.api.config.scheduling;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs {@code @Scheduled} housekeeping, such as sweeping unreferenced blobs, on Boot's task
+ * scheduler.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
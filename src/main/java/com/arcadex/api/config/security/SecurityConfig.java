@@ -36,6 +36,8 @@ public class SecurityConfig {
         ));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
+        // pagination cursors and the status URLs of created uploads
+        configuration.setExposedHeaders(List.of("X-Next-Cursor", "X-Next-Page", "Location"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -1,5 +1,6 @@
 package com.arcadex.api.dungeon.service;
 
+import com.arcadex.api.config.http.OutboundHttpClient;
 import com.arcadex.api.dungeon.dto.DungeonGenerateRequest;
 import com.arcadex.api.dungeon.dto.DungeonGenerateResponse;
 import com.google.gson.Gson;
@@ -14,7 +15,6 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.ArrayList;
@@ -27,10 +27,9 @@ public class DungeonMapService {
 
     private static final Logger log = LoggerFactory.getLogger(DungeonMapService.class);
     private static final Gson gson = new Gson();
+    private static final String LLM_DESTINATION = "openai";
 
-    private final HttpClient httpClient = HttpClient.newBuilder()
-            .version(HttpClient.Version.HTTP_1_1)
-            .build();
+    private final OutboundHttpClient httpClient;
 
     @Value("${ai.openai.base-url}")
     private String baseUrl;
@@ -38,6 +37,10 @@ public class DungeonMapService {
     @Value("${ai.openai.api-key}")
     private String apiKey;
 
+    public DungeonMapService(OutboundHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
     public DungeonGenerateResponse generateDungeonMap(DungeonGenerateRequest request) throws IOException, InterruptedException {
         int actualRoomCount = request.getRooms().size();
         String systemPrompt = buildSystemPrompt();
@@ -135,7 +138,7 @@ public class DungeonMapService {
 
         log.info("Calling LLM API for dungeon generation ({} rooms, maxTokens={})", roomCount, maxTokens);
 
-        HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = httpClient.send(LLM_DESTINATION, httpRequest, HttpResponse.BodyHandlers.ofString());
 
         if (response.statusCode() != 200) {
             log.error("LLM API returned status {}: {}", response.statusCode(), response.body());
@@ -1,17 +1,52 @@
 package com.arcadex.api.game.controller;
 
+import com.arcadex.api.game.entity.GameAsset;
+import com.arcadex.api.game.service.AssetMemoryCache;
+import com.arcadex.api.game.service.AssetMetadataService;
+import com.arcadex.api.game.service.BundleIndexCache;
+import com.arcadex.api.game.service.DiskAssetCache;
+import com.arcadex.api.game.service.FileServingPolicy;
+import com.arcadex.api.game.service.GameBundle;
+import com.arcadex.api.game.service.GameSuggestionIndex;
+import com.arcadex.api.game.service.GameUploadService;
+import com.arcadex.api.game.service.ObjectDownload;
+import com.arcadex.api.game.service.ObjectRangeNotSatisfiableException;
 import com.arcadex.api.game.service.ObjectStorageService;
+import com.arcadex.api.game.service.ThumbnailVariantService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.regex.Pattern;
 
 @RestController
@@ -24,14 +59,38 @@ public class FileController {
             "^(games/[a-f0-9\\-]+/.+|thumbnails/[a-f0-9\\-]+\\.[a-zA-Z]+)$"
     );
 
+    private static final String CACHE_CONTROL = "public, max-age=3600";
+
+    // Client hints carrying the intended display width of an image, in device pixels
+    private static final String WIDTH_HINT = "Sec-CH-Width";
+    private static final String LEGACY_WIDTH_HINT = "Width";
+
     private final ObjectStorageService objectStorageService;
+    private final DiskAssetCache diskAssetCache;
+    private final AssetMemoryCache assetMemoryCache;
+    private final AssetMetadataService assetMetadataService;
+    private final FileServingPolicy fileServingPolicy;
+    private final BundleIndexCache bundleIndexCache;
+    private final ThumbnailVariantService thumbnailVariantService;
+    private final GameSuggestionIndex gameSuggestionIndex;
 
-    public FileController(ObjectStorageService objectStorageService) {
+    public FileController(ObjectStorageService objectStorageService, DiskAssetCache diskAssetCache,
+                          AssetMemoryCache assetMemoryCache, AssetMetadataService assetMetadataService,
+                          FileServingPolicy fileServingPolicy, BundleIndexCache bundleIndexCache,
+                          ThumbnailVariantService thumbnailVariantService,
+                          GameSuggestionIndex gameSuggestionIndex) {
         this.objectStorageService = objectStorageService;
+        this.diskAssetCache = diskAssetCache;
+        this.assetMemoryCache = assetMemoryCache;
+        this.assetMetadataService = assetMetadataService;
+        this.fileServingPolicy = fileServingPolicy;
+        this.bundleIndexCache = bundleIndexCache;
+        this.thumbnailVariantService = thumbnailVariantService;
+        this.gameSuggestionIndex = gameSuggestionIndex;
     }
 
     @GetMapping("/**")
-    public ResponseEntity<byte[]> serveFile(HttpServletRequest request) {
+    public ResponseEntity<StreamingResponseBody> serveFile(HttpServletRequest request) {
         String path = request.getRequestURI().substring("/api/files/".length());
 
         if (path.contains("..") || path.startsWith("/") || !SAFE_PATH_PATTERN.matcher(path).matches()) {
@@ -39,21 +98,592 @@ public class FileController {
         }
 
         try {
-            byte[] content = objectStorageService.downloadFile(path);
-            String contentType = guessContentType(path);
+            // Thumbnails are answered with the smallest stored variant that still fills the requested width.
+            boolean thumbnail = path.startsWith(ThumbnailVariantService.PREFIX);
+            int width = thumbnail ? requestedWidth(request) : 0;
+            String served = width > 0 ? thumbnailVariantService.select(path, width) : path;
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
-            headers.setCacheControl("public, max-age=3600");
-            headers.setContentLength(content.length);
+            Optional<GameAsset> asset = assetMetadataService.find(served);
+            String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+            List<HttpRange> ranges = parseRanges(rangeHeader);
+
+            // Ranges always address the identity representation, so only whole-body requests are compressed.
+            boolean hasGzipVariant = asset.map(GameAsset::hasGzipVariant).orElse(false);
+            boolean gzip = hasGzipVariant && ranges.isEmpty()
+                    && acceptsEncoding(request.getHeader(HttpHeaders.ACCEPT_ENCODING), "gzip");
+            Validators recorded = asset.map(a -> validatorsOf(a, gzip)).orElse(null);
+
+            // The manifest maps the game path to the content-addressed blob or bundle holding its bytes.
+            String stored = asset.map(GameAsset::getStorageObjectName).orElse(served);
+            BundleIndexCache.Slice slice = null;
+            if (GameBundle.isBundle(stored)) {
+                slice = bundleIndexCache.find(stored, path, gzip);
+                if (slice == null) {
+                    return ResponseEntity.notFound().build();
+                }
+                // bundled files are cached under their own path; the bundle is only a container
+                stored = path;
+            }
+
+            FileRequest file = new FileRequest(
+                    gzip ? stored + GameUploadService.GZIP_SUFFIX : stored,
+                    asset.map(a -> gzip ? a.getGzipSize() : a.getSize()).orElse(-1L),
+                    guessContentType(served),
+                    gzip ? "gzip" : null,
+                    hasGzipVariant,
+                    thumbnail,
+                    rangeHeader,
+                    ranges,
+                    request.getHeader(HttpHeaders.IF_RANGE),
+                    recorded,
+                    slice);
+
+            // Revalidation is answered from metadata alone, without touching storage.
+            if (recorded != null && isNotModified(request, recorded)) {
+                fileServingPolicy.recordNotModified();
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .headers(baseHeaders(file, recorded))
+                        .build();
+            }
+            if (!thumbnail && ranges.isEmpty()) {
+                // a request for a game's entry document is a launch, which ranks its suggestions;
+                // revalidating a cached copy is not
+                gameSuggestionIndex.recordLaunch(path);
+            }
+
+            // Precompressed variants need our Content-Encoding header and bundled files a byte
+            // offset, so both are always proxied.
+            long size = file.size();
+            if (file.contentEncoding() == null && file.slice() == null && fileServingPolicy.shouldRedirect(path, size)) {
+                String signedUrl = objectStorageService.getSignedDownloadUrl(file.objectName(),
+                        fileServingPolicy.getSignedUrlTtlSeconds());
+                // backends without direct URLs (local disk) are always proxied
+                if (signedUrl != null) {
+                    fileServingPolicy.recordRedirected(size);
+                    return ResponseEntity.status(HttpStatus.FOUND)
+                            .header(HttpHeaders.LOCATION, signedUrl)
+                            .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                            .build();
+                }
+            }
 
-            return new ResponseEntity<>(content, headers, HttpStatus.OK);
+            ResponseEntity<StreamingResponseBody> response = serve(file);
+            fileServingPolicy.recordProxied(response.getHeaders().getContentLength());
+            return response;
+        } catch (ObjectRangeNotSatisfiableException e) {
+            return rangeNotSatisfiable(e.getTotalLength());
         } catch (Exception e) {
             log.error("Error serving file: {}", path, e);
             return ResponseEntity.notFound().build();
         }
     }
 
+    private ResponseEntity<StreamingResponseBody> serve(FileRequest file) throws IOException, InterruptedException {
+        if (file.slice() != null) {
+            return serveBundled(file, file.slice());
+        }
+
+        AssetMemoryCache.CachedBytes inMemory = assetMemoryCache.get(file.objectName());
+        if (inMemory != null) {
+            return serveBytes(file, inMemory);
+        }
+
+        if (assetMemoryCache.accepts(file.size())) {
+            // Known-small objects are fetched once and fanned out to every concurrent request.
+            AssetMemoryCache.CachedBytes loaded = assetMemoryCache.getOrLoad(file.objectName(), () -> loadBytes(file));
+            if (loaded != null) {
+                return serveBytes(file, loaded);
+            }
+        }
+
+        if (diskAssetCache.accepts(file.size())) {
+            // Misses never wait for a fill: whole-body requests fill the cache while they stream
+            // from storage, and ranged requests (media seeking) leave it to a background fetch.
+            DiskAssetCache.CachedAsset cached = diskAssetCache.getIfPresent(file.objectName());
+            if (cached != null && assetMemoryCache.accepts(cached.size())) {
+                AssetMemoryCache.CachedBytes promoted = promoteToMemory(cached);
+                if (promoted != null) {
+                    return serveBytes(file, promoted);
+                }
+            }
+            if (cached != null) {
+                ResponseEntity<StreamingResponseBody> response = serveCached(file, cached, 0, cached.size());
+                if (response != null) {
+                    return response;
+                }
+            } else if (!file.ranges().isEmpty()) {
+                diskAssetCache.prefetch(file.objectName());
+            }
+        }
+
+        return serveFromStorage(file);
+    }
+
+    private AssetMemoryCache.CachedBytes loadBytes(FileRequest file) throws IOException, InterruptedException {
+        if (diskAssetCache.isEnabled()) {
+            DiskAssetCache.CachedAsset cached = diskAssetCache.getOrFetch(file.objectName());
+            if (cached != null) {
+                try {
+                    return new AssetMemoryCache.CachedBytes(
+                            Files.readAllBytes(cached.file()), cached.eTag(), cached.lastModified());
+                } catch (NoSuchFileException e) {
+                    // evicted from disk in the meantime; read it from storage instead
+                }
+            }
+        }
+        try (ObjectDownload download = objectStorageService.openDownload(file.objectName())) {
+            return new AssetMemoryCache.CachedBytes(
+                    download.getInputStream().readAllBytes(), download.getETag(), download.getLastModified());
+        }
+    }
+
+    private AssetMemoryCache.CachedBytes promoteToMemory(DiskAssetCache.CachedAsset cached) {
+        try {
+            AssetMemoryCache.CachedBytes bytes = new AssetMemoryCache.CachedBytes(
+                    Files.readAllBytes(cached.file()), cached.eTag(), cached.lastModified());
+            assetMemoryCache.put(cached.objectName(), bytes);
+            return bytes;
+        } catch (IOException e) {
+            // evicted from disk in the meantime
+            return null;
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> serveBytes(FileRequest file, AssetMemoryCache.CachedBytes cached) {
+        Validators validators = file.validatorsOr(cached.eTag(), cached.lastModified());
+        byte[] content = cached.content();
+        RegionWriter writer = (start, end, out) -> out.write(content, (int) start, (int) (end - start + 1));
+        return serveRegions(file, validators, content.length, writer, null);
+    }
+
+    /**
+     * Serves the {@code length} bytes at {@code offset} of a cached blob file.
+     *
+     * @return the response, or null if the blob was evicted before it could be opened
+     */
+    private ResponseEntity<StreamingResponseBody> serveCached(FileRequest file, DiskAssetCache.CachedAsset cached,
+                                                              long offset, long length) {
+        FileChannel channel;
+        try {
+            channel = cached.open();
+        } catch (IOException e) {
+            return null;
+        }
+
+        Validators validators = file.validatorsOr(cached.eTag(), cached.lastModified());
+        byte[] buffer = new byte[8192];
+        RegionWriter writer = (start, end, out) -> {
+            long position = offset + start;
+            while (position <= offset + end) {
+                int chunk = (int) Math.min(buffer.length, offset + end - position + 1);
+                int read = channel.read(ByteBuffer.wrap(buffer, 0, chunk), position);
+                if (read < 0) {
+                    throw new EOFException("Cached asset ended early: " + cached.objectName());
+                }
+                out.write(buffer, 0, read);
+                position += read;
+            }
+        };
+
+        try {
+            return serveRegions(file, validators, length, writer, channel);
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Serves one file out of a game bundle. Small files go through the memory cache like any other
+     * asset; larger ones are cut from the bundle on local disk when it is cached there, and
+     * otherwise each requested region is a ranged read against the bundle object.
+     */
+    private ResponseEntity<StreamingResponseBody> serveBundled(FileRequest file, BundleIndexCache.Slice slice)
+            throws IOException, InterruptedException {
+        if (assetMemoryCache.accepts(slice.length())) {
+            AssetMemoryCache.CachedBytes loaded = assetMemoryCache.getOrLoad(file.objectName(),
+                    () -> new AssetMemoryCache.CachedBytes(bundleIndexCache.read(slice), null, null));
+            return serveBytes(file, loaded);
+        }
+
+        if (diskAssetCache.isEnabled()) {
+            DiskAssetCache.CachedAsset cached = diskAssetCache.getIfPresent(slice.bundleName());
+            if (cached != null) {
+                ResponseEntity<StreamingResponseBody> response = serveCached(file, cached, slice.offset(), slice.length());
+                if (response != null) {
+                    return response;
+                }
+            } else {
+                diskAssetCache.prefetch(slice.bundleName());
+            }
+        }
+
+        RegionWriter writer = (start, end, out) -> {
+            try (ObjectDownload part = bundleIndexCache.open(slice, start, end)) {
+                part.transferTo(out);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while streaming " + file.objectName());
+            }
+        };
+        return serveRegions(file, file.recorded(), slice.length(), writer, null);
+    }
+
+    private ResponseEntity<StreamingResponseBody> serveFromStorage(FileRequest file)
+            throws IOException, InterruptedException {
+        if (file.ranges().size() > 1) {
+            return serveMultipleRangesFromStorage(file);
+        }
+
+        String objectName = file.objectName();
+        ObjectDownload download = objectStorageService.openDownload(objectName, file.ranges().isEmpty() ? null : file.rangeHeader());
+        Validators validators = file.validatorsOr(download.getETag(), download.getLastModified());
+        if (download.isPartial() && !ifRangeMatches(file.ifRange(), validators)) {
+            download.close();
+            download = objectStorageService.openDownload(objectName);
+        }
+
+        if (!download.isPartial() && assetMemoryCache.accepts(download.getContentLength())) {
+            byte[] content;
+            try (ObjectDownload fullBody = download) {
+                content = fullBody.getInputStream().readAllBytes();
+            }
+            AssetMemoryCache.CachedBytes bytes =
+                    new AssetMemoryCache.CachedBytes(content, download.getETag(), download.getLastModified());
+            assetMemoryCache.put(objectName, bytes);
+            return serveBytes(file, bytes);
+        }
+        if (!download.isPartial()) {
+            download = diskAssetCache.fillWhileStreaming(objectName, download);
+        }
+        return streamDownload(file, download, validators);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamDownload(FileRequest file, ObjectDownload download,
+                                                                 Validators validators) {
+        HttpHeaders headers = baseHeaders(file, validators);
+        headers.setContentType(MediaType.parseMediaType(file.contentType()));
+        if (download.getContentLength() >= 0) {
+            headers.setContentLength(download.getContentLength());
+        }
+        if (download.isPartial()) {
+            headers.set(HttpHeaders.CONTENT_RANGE, download.getContentRange());
+        }
+
+        StreamingResponseBody body = out -> {
+            try (download) {
+                download.transferTo(out);
+            }
+        };
+
+        HttpStatus status = download.isPartial() ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK;
+        return new ResponseEntity<>(body, headers, status);
+    }
+
+    /**
+     * Answers a multi-range request for an uncached object. The object size comes from a one-byte
+     * probe, then each part is a separate ranged read so only the requested bytes are transferred.
+     */
+    private ResponseEntity<StreamingResponseBody> serveMultipleRangesFromStorage(FileRequest file)
+            throws IOException, InterruptedException {
+        String objectName = file.objectName();
+        long totalLength;
+        Validators validators;
+        try (ObjectDownload probe = objectStorageService.openDownload(objectName, "bytes=0-0")) {
+            totalLength = probe.getTotalLength();
+            validators = file.validatorsOr(probe.getETag(), probe.getLastModified());
+            if (!probe.isPartial() || totalLength < 0) {
+                return streamDownload(file, objectStorageService.openDownload(objectName), validators);
+            }
+        }
+
+        RegionWriter writer = (start, end, out) -> {
+            try (ObjectDownload part = objectStorageService.openDownload(objectName, "bytes=" + start + "-" + end)) {
+                part.transferTo(out);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while streaming " + objectName);
+            }
+        };
+        return serveRegions(file, validators, totalLength, writer, null);
+    }
+
+    /**
+     * Builds a full, single-range or {@code multipart/byteranges} response for an object of known
+     * length. {@code resource} is closed once the body has been written.
+     */
+    private ResponseEntity<StreamingResponseBody> serveRegions(FileRequest file, Validators validators,
+                                                               long totalLength, RegionWriter writer,
+                                                               Closeable resource) {
+        List<HttpRange> ranges = ifRangeMatches(file.ifRange(), validators) ? file.ranges() : List.of();
+        List<long[]> regions = new ArrayList<>();
+        for (HttpRange range : ranges) {
+            try {
+                regions.add(new long[]{range.getRangeStart(totalLength), range.getRangeEnd(totalLength)});
+            } catch (IllegalArgumentException e) {
+                // unsatisfiable ranges are skipped; the request fails only if none remain
+            }
+        }
+        if (!ranges.isEmpty() && regions.isEmpty()) {
+            closeQuietly(resource);
+            return rangeNotSatisfiable(totalLength);
+        }
+
+        HttpHeaders headers = baseHeaders(file, validators);
+        String contentType = file.contentType();
+        if (regions.size() <= 1) {
+            long start = regions.isEmpty() ? 0 : regions.get(0)[0];
+            long end = regions.isEmpty() ? totalLength - 1 : regions.get(0)[1];
+            headers.setContentType(MediaType.parseMediaType(contentType));
+            headers.setContentLength(end - start + 1);
+            if (!regions.isEmpty()) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + totalLength);
+            }
+            StreamingResponseBody body = out -> {
+                try (resource) {
+                    if (totalLength > 0) {
+                        writer.write(start, end, out);
+                    }
+                }
+            };
+            return new ResponseEntity<>(body, headers, regions.isEmpty() ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT);
+        }
+
+        // Part headers are built up front so the multipart body has a known length.
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>();
+        long contentLength = 0;
+        for (long[] region : regions) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + "Content-Type: " + contentType + "\r\n"
+                    + "Content-Range: bytes " + region[0] + "-" + region[1] + "/" + totalLength + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + region[1] - region[0] + 1;
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        StreamingResponseBody body = out -> {
+            try (resource) {
+                for (int i = 0; i < regions.size(); i++) {
+                    out.write(partHeaders.get(i));
+                    writer.write(regions.get(i)[0], regions.get(i)[1], out);
+                }
+                out.write(closing);
+            }
+        };
+
+        headers.setContentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary));
+        headers.setContentLength(contentLength);
+        return new ResponseEntity<>(body, headers, HttpStatus.PARTIAL_CONTENT);
+    }
+
+    private HttpHeaders baseHeaders(FileRequest file, Validators validators) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(CACHE_CONTROL);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        List<String> vary = new ArrayList<>();
+        if (file.varyOnEncoding()) {
+            vary.add(HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (file.varyOnWidth()) {
+            vary.add(WIDTH_HINT);
+            vary.add(LEGACY_WIDTH_HINT);
+            // asks browsers to send the width hint on later image requests
+            headers.set("Accept-CH", WIDTH_HINT);
+        }
+        if (!vary.isEmpty()) {
+            headers.setVary(vary);
+        }
+        if (file.contentEncoding() != null) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, file.contentEncoding());
+        }
+        if (validators.eTag() != null) {
+            headers.set(HttpHeaders.ETAG, validators.eTag());
+        }
+        if (validators.lastModified() != null) {
+            headers.set(HttpHeaders.LAST_MODIFIED, validators.lastModified());
+        }
+        return headers;
+    }
+
+    private ResponseEntity<StreamingResponseBody> rangeNotSatisfiable(long totalLength) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + (totalLength >= 0 ? totalLength : "*"))
+                .build();
+    }
+
+    /**
+     * @return the display width asked for by the {@code w} parameter or a width client hint, or 0
+     * if none was given
+     */
+    private static int requestedWidth(HttpServletRequest request) {
+        for (String value : new String[]{request.getParameter("w"), request.getHeader(WIDTH_HINT),
+                request.getHeader(LEGACY_WIDTH_HINT)}) {
+            if (value == null || value.isBlank()) {
+                continue;
+            }
+            try {
+                return Math.max(0, Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                // malformed widths are ignored
+            }
+        }
+        return 0;
+    }
+
+    private List<HttpRange> parseRanges(String rangeHeader) {
+        if (rangeHeader == null || rangeHeader.isBlank()) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            // a malformed Range header is ignored and the full body is served
+            return List.of();
+        }
+    }
+
+    /**
+     * {@code If-None-Match} takes precedence over {@code If-Modified-Since}, and entity tags are
+     * compared weakly, as required for conditional GETs.
+     */
+    private boolean isNotModified(HttpServletRequest request, Validators validators) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || stripWeak(tag).equals(stripWeak(validators.eTag()))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Instant lastModified = parseHttpDate(validators.lastModified());
+        Instant ifModifiedSince = parseHttpDate(request.getHeader(HttpHeaders.IF_MODIFIED_SINCE));
+        return lastModified != null && ifModifiedSince != null && !lastModified.isAfter(ifModifiedSince);
+    }
+
+    /**
+     * {@code If-Range} only allows a partial response when the validator still matches the
+     * stored object; weak entity tags never match.
+     */
+    private boolean ifRangeMatches(String ifRange, Validators validators) {
+        if (ifRange == null || ifRange.isBlank()) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return !value.startsWith("W/") && value.equals(validators.eTag());
+        }
+        Instant since = parseHttpDate(value);
+        return since != null && since.equals(parseHttpDate(validators.lastModified()));
+    }
+
+    /**
+     * @return whether {@code encoding} has a non-zero quality in {@code Accept-Encoding}, either by
+     * name or through {@code *}
+     */
+    private static boolean acceptsEncoding(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        Double named = null;
+        Double wildcard = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String coding = params[0].trim().toLowerCase();
+            double quality = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0.0;
+                    }
+                }
+            }
+            if (coding.equals(encoding)) {
+                named = quality;
+            } else if (coding.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        Double quality = named != null ? named : wildcard;
+        return quality != null && quality > 0;
+    }
+
+    private static String stripWeak(String eTag) {
+        if (eTag == null) {
+            return "";
+        }
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    private static Instant parseHttpDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Each stored representation gets its own strong entity tag, so a gzip body is never matched
+     * against the identity one.
+     */
+    private static Validators validatorsOf(GameAsset asset, boolean gzip) {
+        String lastModified = null;
+        if (asset.getCreatedAt() != null) {
+            Instant created = asset.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().truncatedTo(ChronoUnit.SECONDS);
+            lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(created.atZone(ZoneOffset.UTC));
+        }
+        String eTag = "\"" + asset.getContentHash() + (gzip ? "-gzip" : "") + "\"";
+        return new Validators(eTag, lastModified);
+    }
+
+    private static void closeQuietly(Closeable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (IOException e) {
+            log.debug("Failed to close resource", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RegionWriter {
+        void write(long start, long end, OutputStream out) throws IOException;
+    }
+
+    private record Validators(String eTag, String lastModified) {}
+
+    /**
+     * The parts of an incoming file request that every serving tier needs. {@code objectName} is the
+     * stored representation to send: the blob the requested path resolves to (the path itself for
+     * bundled files), or its precompressed variant. {@code size} is its length from upload metadata (-1 if unknown). {@code recorded}
+     * holds the content-hash validators from upload metadata and is null for objects uploaded
+     * before metadata was kept; those fall back to whatever validators storage returns.
+     * {@code slice} locates the file inside its game bundle and is null for standalone objects.
+     * {@code varyOnWidth} is set for thumbnails, whose representation depends on width hints.
+     */
+    private record FileRequest(String objectName, long size, String contentType, String contentEncoding,
+                               boolean varyOnEncoding, boolean varyOnWidth, String rangeHeader, List<HttpRange> ranges,
+                               String ifRange, Validators recorded, BundleIndexCache.Slice slice) {
+
+        Validators validatorsOr(String eTag, String lastModified) {
+            return recorded != null ? recorded : new Validators(eTag, lastModified);
+        }
+    }
+
     private String guessContentType(String filename) {
         String lower = filename.toLowerCase();
         if (lower.endsWith(".html") || lower.endsWith(".htm")) return "text/html";
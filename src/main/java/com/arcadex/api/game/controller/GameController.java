@@ -1,40 +1,130 @@
 package com.arcadex.api.game.controller;
 
+import com.arcadex.api.game.dto.GameSummary;
 import com.arcadex.api.game.entity.Game;
-import com.arcadex.api.game.repository.GameRepository;
+import com.arcadex.api.game.service.CatalogCursor;
+import com.arcadex.api.game.service.GameCatalogService;
+import com.arcadex.api.game.service.GameSearchService;
+import com.arcadex.api.game.service.GameUploadRequest;
 import com.arcadex.api.game.service.GameUploadService;
+import com.arcadex.api.game.service.InvalidGameArchiveException;
+import com.arcadex.api.game.service.ResumableUpload;
+import com.arcadex.api.game.service.ResumableUploadService;
+import com.arcadex.api.game.service.UploadJob;
+import com.arcadex.api.game.service.UploadJobService;
+import com.arcadex.api.game.service.UploadProgress;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
+import java.io.IOException;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/games")
 public class GameController {
 
     private static final Logger log = LoggerFactory.getLogger(GameController.class);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NEXT_PAGE_HEADER = "X-Next-Page";
 
-    private final GameRepository gameRepository;
+    private final GameCatalogService gameCatalogService;
+    private final GameSearchService gameSearchService;
     private final GameUploadService gameUploadService;
+    private final UploadJobService uploadJobService;
+    private final ResumableUploadService resumableUploadService;
 
-    public GameController(GameRepository gameRepository, GameUploadService gameUploadService) {
-        this.gameRepository = gameRepository;
+    public GameController(GameCatalogService gameCatalogService, GameSearchService gameSearchService,
+                          GameUploadService gameUploadService, UploadJobService uploadJobService,
+                          ResumableUploadService resumableUploadService) {
+        this.gameCatalogService = gameCatalogService;
+        this.gameSearchService = gameSearchService;
         this.gameUploadService = gameUploadService;
+        this.uploadJobService = uploadJobService;
+        this.resumableUploadService = resumableUploadService;
     }
 
+    /**
+     * Lists one page of the catalog. When more games follow, the response carries an
+     * {@code X-Next-Cursor} header to pass back as {@code cursor} for the next page.
+     * <p>
+     * Games are listed without their description, with {@code fields} (e.g. {@code title,gameUrl})
+     * choosing what else to read; {@code GET /api/games/{id}} has the whole game.
+     */
     @GetMapping
-    public List<Game> getAllGames() {
-        return gameRepository.findAll();
+    public ResponseEntity<?> getGames(
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "fields", required = false) String fields) {
+        GameCatalogService.Sort order;
+        CatalogCursor from;
+        Set<GameSummary.Field> selected;
+        try {
+            order = GameCatalogService.Sort.parse(sort);
+            from = cursor == null || cursor.isBlank() ? null : CatalogCursor.decode(cursor);
+            selected = GameSummary.Field.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid sort, cursor or fields"));
+        }
+
+        GameCatalogService.Page page = gameCatalogService.page(category, order, from, limit, selected);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().encode());
+        }
+        return response.body(page.games());
+    }
+
+    /**
+     * Searches titles, categories and descriptions, best match first. When more results follow, the
+     * response carries an {@code X-Next-Page} header with the page number to request next.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchGames(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        GameSearchService.Page results;
+        try {
+            results = gameSearchService.search(query, page, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (results.hasMore()) {
+            response.header(NEXT_PAGE_HEADER, String.valueOf(page + 1));
+        }
+        return response.body(results.hits());
+    }
+
+    /**
+     * Suggests games whose title or category has a word starting with {@code q}, for
+     * search-as-you-type. Answered from memory; a blank {@code q} gets no suggestions.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggestGames(
+            @RequestParam(value = "q", required = false) String prefix,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(gameSearchService.suggest(prefix, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Game> getGameById(@PathVariable Long id) {
-        return gameRepository.findById(id)
+        return gameCatalogService.find(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -45,27 +135,186 @@ public class GameController {
             @RequestParam("description") String description,
             @RequestParam("category") String category,
             @RequestParam("gameFile") MultipartFile gameFile,
+            @RequestParam("thumbnail") MultipartFile thumbnail,
+            @RequestParam(value = "async", defaultValue = "false") boolean async) {
+
+        String error = validateUpload(title, description, category, !gameFile.isEmpty(),
+                gameFile.getOriginalFilename(), thumbnail);
+        if (error != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", error));
+        }
+
+        GameUploadRequest request;
+        try {
+            // ZipFile needs random access, so the archive is spooled to disk rather than into memory.
+            request = GameUploadRequest.spool(title, description, category, gameFile, thumbnail);
+        } catch (Exception e) {
+            log.error("Failed to spool game upload", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to upload game. Please try again."));
+        }
+        return processUpload(request, async);
+    }
+
+    @GetMapping("/upload/jobs/{jobId}")
+    public ResponseEntity<UploadJob> getUploadJob(@PathVariable String jobId) {
+        return uploadJobService.find(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Starts a resumable upload. The archive itself is sent afterwards in {@code chunkSize} pieces
+     * to {@code PUT /api/games/uploads/{uploadId}/chunks/{index}}.
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<?> initiateResumableUpload(
+            @RequestParam("title") String title,
+            @RequestParam("description") String description,
+            @RequestParam("category") String category,
+            @RequestParam("fileName") String fileName,
+            @RequestParam("totalSize") long totalSize,
             @RequestParam("thumbnail") MultipartFile thumbnail) {
 
+        String error = validateUpload(title, description, category, totalSize > 0, fileName, thumbnail);
+        if (error != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", error));
+        }
+
+        try {
+            ResumableUpload upload = resumableUploadService.initiate(title, description, category, thumbnail, totalSize);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(HttpHeaders.LOCATION, "/api/games/uploads/" + upload.getId())
+                    .body(upload);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to initiate resumable upload", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to upload game. Please try again."));
+        }
+    }
+
+    /**
+     * Reports which chunks have arrived, so a client can resume by sending only the missing ones.
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<ResumableUpload> getResumableUpload(@PathVariable String uploadId) {
+        return resumableUploadService.find(uploadId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/uploads/{uploadId}/chunks/{index}")
+    public ResponseEntity<?> uploadChunk(@PathVariable String uploadId, @PathVariable int index,
+                                         HttpServletRequest request) {
+        try {
+            if (!resumableUploadService.writeChunk(uploadId, index, request.getInputStream())) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.warn("Failed to receive chunk {} of upload {}: {}", index, uploadId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to receive chunk. Please retry it."));
+        }
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeResumableUpload(@PathVariable String uploadId,
+                                                     @RequestParam(value = "async", defaultValue = "false") boolean async) {
+        Optional<GameUploadRequest> request;
+        try {
+            request = resumableUploadService.complete(uploadId);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to complete resumable upload {}", uploadId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to upload game. Please try again."));
+        }
+        return request.map(spooled -> processUpload(spooled, async))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> abortResumableUpload(@PathVariable String uploadId) {
+        try {
+            return resumableUploadService.abort(uploadId)
+                    ? ResponseEntity.noContent().build()
+                    : ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.warn("Failed to clean up aborted upload {}", uploadId, e);
+            return ResponseEntity.noContent().build();
+        }
+    }
+
+    /**
+     * Extracts and saves a spooled upload, either right away (201 with the game) or in a
+     * background job (202 with the job's status URL).
+     */
+    private ResponseEntity<?> processUpload(GameUploadRequest request, boolean async) {
+        if (async) {
+            try {
+                UploadJob job = uploadJobService.submit(request);
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .header(HttpHeaders.LOCATION, "/api/games/upload/jobs/" + job.getId())
+                        .body(job);
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+            } catch (Exception e) {
+                log.error("Failed to queue game upload", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("error", "Failed to upload game. Please try again."));
+            }
+        }
+
+        try {
+            Game game = gameUploadService.uploadGame(request, UploadProgress.NONE);
+            return ResponseEntity.status(HttpStatus.CREATED).body(game);
+        } catch (InvalidGameArchiveException e) {
+            log.warn("Rejected game archive: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to upload game", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to upload game. Please try again."));
+        } finally {
+            try {
+                request.discard();
+            } catch (IOException e) {
+                log.warn("Failed to delete spooled upload files", e);
+            }
+        }
+    }
+
+    /**
+     * @return the error to report, or null if the upload may proceed
+     */
+    private static String validateUpload(String title, String description, String category,
+                                         boolean hasGameFile, String gameFileName, MultipartFile thumbnail) {
         if (title == null || title.isBlank()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Title is required"));
+            return "Title is required";
         }
         if (description == null || description.isBlank()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Description is required"));
+            return "Description is required";
         }
         if (category == null || category.isBlank()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Category is required"));
+            return "Category is required";
         }
-        if (gameFile.isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Game file is required"));
+        if (!hasGameFile) {
+            return "Game file is required";
         }
         if (thumbnail.isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Thumbnail is required"));
+            return "Thumbnail is required";
         }
 
-        String gameFileName = gameFile.getOriginalFilename();
         if (gameFileName == null || !gameFileName.toLowerCase().endsWith(".zip")) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Game file must be a .zip file"));
+            return "Game file must be a .zip file";
         }
 
         String thumbName = thumbnail.getOriginalFilename();
@@ -73,18 +322,9 @@ public class GameController {
             String lower = thumbName.toLowerCase();
             if (!lower.endsWith(".jpg") && !lower.endsWith(".jpeg") && !lower.endsWith(".png")
                     && !lower.endsWith(".gif") && !lower.endsWith(".webp")) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Thumbnail must be an image file (jpg, png, gif, webp)"));
+                return "Thumbnail must be an image file (jpg, png, gif, webp)";
             }
         }
-
-        try {
-            Game game = gameUploadService.uploadGame(title, description, category, gameFile, thumbnail);
-            return ResponseEntity.status(HttpStatus.CREATED).body(game);
-        } catch (Exception e) {
-            log.error("Failed to upload game", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Failed to upload game. Please try again."));
-        }
+        return null;
     }
 }
-
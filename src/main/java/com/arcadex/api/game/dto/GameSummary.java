@@ -0,0 +1,75 @@
+package com.arcadex.api.game.dto;
+
+import com.arcadex.api.game.entity.Game;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A game as listed in the catalog, without its description. Only the selected {@link Field}s are
+ * read and sent; the rest are null and left out of the JSON. {@code id} and {@code createdAt}
+ * are always present, since page cursors are made of them.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GameSummary(Long id, String title, String thumbnailUrl, String gameUrl, String category,
+                          LocalDateTime createdAt) {
+
+    public enum Field {
+        ID("id"),
+        TITLE("title"),
+        THUMBNAIL_URL("thumbnailUrl"),
+        GAME_URL("gameUrl"),
+        CATEGORY("category"),
+        CREATED_AT("createdAt");
+
+        /** What a grid view needs. */
+        public static final Set<Field> DEFAULT =
+                Collections.unmodifiableSet(EnumSet.of(ID, TITLE, THUMBNAIL_URL, CATEGORY, CREATED_AT));
+
+        private final String attribute;
+
+        Field(String attribute) {
+            this.attribute = attribute;
+        }
+
+        /** The {@link Game} attribute and JSON property this field is read from and sent as. */
+        public String attribute() {
+            return attribute;
+        }
+
+        /**
+         * @param fields comma-separated property names, e.g. {@code title,gameUrl}, or null for {@link #DEFAULT}
+         * @throws IllegalArgumentException for a name that is not a field, which includes {@code description}
+         */
+        public static Set<Field> parse(String fields) {
+            if (fields == null || fields.isBlank()) {
+                return DEFAULT;
+            }
+            EnumSet<Field> parsed = EnumSet.of(ID, CREATED_AT);
+            for (String name : fields.split(",")) {
+                String trimmed = name.trim();
+                parsed.add(Arrays.stream(values())
+                        .filter(field -> field.attribute.equalsIgnoreCase(trimmed))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown field: " + trimmed)));
+            }
+            return parsed;
+        }
+
+        /** The canonical spelling of {@code fields}, for cache keys. */
+        public static String format(Set<Field> fields) {
+            return fields.stream().map(field -> field.name().toLowerCase(Locale.ROOT)).collect(Collectors.joining(","));
+        }
+    }
+
+    public static GameSummary of(Game game) {
+        return new GameSummary(game.getId(), game.getTitle(), game.getThumbnailUrl(), game.getGameUrl(),
+                game.getCategory(), game.getCreatedAt());
+    }
+}
@@ -0,0 +1,59 @@
+package com.arcadex.api.game.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored object addressed by the SHA-256 of its bytes, shared by every game asset with the
+ * same content. {@code referenceCount} is the number of {@link GameAsset} rows pointing at it.
+ */
+@Entity
+@Table(name = "asset_blobs")
+public class AssetBlob {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "gzip_size")
+    private Long gzipSize;
+
+    @Column(name = "reference_count", nullable = false)
+    private int referenceCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public AssetBlob() {}
+
+    public AssetBlob(String contentHash, long size, Long gzipSize, int referenceCount) {
+        this.contentHash = contentHash;
+        this.size = size;
+        this.gzipSize = gzipSize;
+        this.referenceCount = referenceCount;
+    }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+
+    public Long getGzipSize() { return gzipSize; }
+    public void setGzipSize(Long gzipSize) { this.gzipSize = gzipSize; }
+
+    public int getReferenceCount() { return referenceCount; }
+    public void setReferenceCount(int referenceCount) { this.referenceCount = referenceCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
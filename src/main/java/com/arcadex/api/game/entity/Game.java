@@ -5,7 +5,11 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "games")
+@Table(name = "games", indexes = {
+        // keyset pagination of the catalog, newest or oldest first, optionally within one category
+        @Index(name = "idx_games_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_games_category_created_at_id", columnList = "category, created_at, id")
+})
 public class Game {
 
     @Id
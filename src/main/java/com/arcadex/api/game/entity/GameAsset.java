@@ -0,0 +1,85 @@
+package com.arcadex.api.game.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "game_assets", indexes = {
+        @Index(name = "idx_game_assets_game_uuid", columnList = "game_uuid")
+})
+public class GameAsset {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "game_uuid", nullable = false, length = 36)
+    private String gameUuid;
+
+    @Column(name = "object_name", nullable = false, unique = true, length = 512)
+    private String objectName;
+
+    // The shared blob holding the bytes; null for assets stored under their own path.
+    @Column(name = "storage_object_name", length = 512)
+    private String storageObjectName;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @Column(name = "gzip_size")
+    private Long gzipSize;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public GameAsset() {}
+
+    public GameAsset(String gameUuid, String objectName, String contentHash, long size, String contentType) {
+        this.gameUuid = gameUuid;
+        this.objectName = objectName;
+        this.contentHash = contentHash;
+        this.size = size;
+        this.contentType = contentType;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getGameUuid() { return gameUuid; }
+    public void setGameUuid(String gameUuid) { this.gameUuid = gameUuid; }
+
+    public String getObjectName() { return objectName; }
+    public void setObjectName(String objectName) { this.objectName = objectName; }
+
+    public String getStorageObjectName() { return storageObjectName != null ? storageObjectName : objectName; }
+    public void setStorageObjectName(String storageObjectName) { this.storageObjectName = storageObjectName; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public Long getGzipSize() { return gzipSize; }
+    public void setGzipSize(Long gzipSize) { this.gzipSize = gzipSize; }
+
+    public boolean hasGzipVariant() { return gzipSize != null; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,27 @@
+package com.arcadex.api.game.repository;
+
+import com.arcadex.api.game.entity.AssetBlob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AssetBlobRepository extends JpaRepository<AssetBlob, String> {
+
+    @Modifying
+    @Query("update AssetBlob b set b.referenceCount = b.referenceCount + :delta where b.contentHash = :contentHash")
+    int adjustReferences(@Param("contentHash") String contentHash, @Param("delta") int delta);
+
+    @Modifying
+    @Query("delete from AssetBlob b where b.contentHash = :contentHash and b.referenceCount <= 0")
+    int deleteIfUnreferenced(@Param("contentHash") String contentHash);
+
+    @Query("select b from AssetBlob b where b.referenceCount <= 0 and b.createdAt < :createdBefore order by b.createdAt")
+    List<AssetBlob> findUnreferencedCreatedBefore(@Param("createdBefore") LocalDateTime createdBefore, Limit limit);
+}
@@ -0,0 +1,16 @@
+package com.arcadex.api.game.repository;
+
+import com.arcadex.api.game.entity.GameAsset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GameAssetRepository extends JpaRepository<GameAsset, Long> {
+
+    Optional<GameAsset> findByObjectName(String objectName);
+
+    List<GameAsset> findByGameUuid(String gameUuid);
+}
@@ -4,6 +4,10 @@ import com.arcadex.api.game.entity.Game;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+/**
+ * Whole games, for single-game reads and writes. Catalog lists go through
+ * {@link GameSummaryQueries#findSummaries}, which does not read descriptions.
+ */
 @Repository
-public interface GameRepository extends JpaRepository<Game, Long> {
+public interface GameRepository extends JpaRepository<Game, Long>, GameSummaryQueries {
 }
@@ -0,0 +1,26 @@
+package com.arcadex.api.game.repository;
+
+import com.arcadex.api.game.dto.GameSummary;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Catalog pages read as {@link GameSummary} projections, selecting only the requested columns so
+ * the description is never read for a list.
+ * <p>
+ * Pages are read by keyset on {@code (createdAt, id)}: each page starts right after the last game
+ * of the previous one, so every page costs the same however deep it is. The redundant bound on
+ * {@code createdAt} alone lets the database start the index scan at the cursor.
+ */
+public interface GameSummaryQueries {
+
+    /**
+     * @param category    only games in this category, or null for all
+     * @param newestFirst whether to list games created before the cursor, newest first, rather than
+     *                    after it, oldest first
+     */
+    List<GameSummary> findSummaries(Set<GameSummary.Field> fields, String category, boolean newestFirst,
+                                    LocalDateTime createdAt, long id, int limit);
+}
@@ -0,0 +1,78 @@
+package com.arcadex.api.game.repository;
+
+import com.arcadex.api.game.dto.GameSummary;
+import com.arcadex.api.game.dto.GameSummary.Field;
+import com.arcadex.api.game.entity.Game;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+public class GameSummaryQueriesImpl implements GameSummaryQueries {
+
+    private final EntityManager entityManager;
+
+    public GameSummaryQueriesImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<GameSummary> findSummaries(Set<Field> fields, String category, boolean newestFirst,
+                                           LocalDateTime createdAt, long id, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Game> game = query.from(Game.class);
+        Path<LocalDateTime> gameCreatedAt = game.get(Field.CREATED_AT.attribute());
+        Path<Long> gameId = game.get(Field.ID.attribute());
+
+        // the cursor columns are always read
+        EnumSet<Field> selected = EnumSet.of(Field.ID, Field.CREATED_AT);
+        selected.addAll(fields);
+        List<Selection<?>> columns = new ArrayList<>();
+        for (Field field : selected) {
+            columns.add(game.get(field.attribute()).alias(field.attribute()));
+        }
+        query.multiselect(columns);
+
+        List<Predicate> where = new ArrayList<>();
+        if (category != null) {
+            where.add(cb.equal(game.get(Field.CATEGORY.attribute()), category));
+        }
+        if (newestFirst) {
+            where.add(cb.lessThanOrEqualTo(gameCreatedAt, createdAt));
+            where.add(cb.or(cb.lessThan(gameCreatedAt, createdAt), cb.lessThan(gameId, id)));
+            query.orderBy(cb.desc(gameCreatedAt), cb.desc(gameId));
+        } else {
+            where.add(cb.greaterThanOrEqualTo(gameCreatedAt, createdAt));
+            where.add(cb.or(cb.greaterThan(gameCreatedAt, createdAt), cb.greaterThan(gameId, id)));
+            query.orderBy(cb.asc(gameCreatedAt), cb.asc(gameId));
+        }
+        query.where(where.toArray(Predicate[]::new));
+
+        List<GameSummary> summaries = new ArrayList<>();
+        for (Tuple row : entityManager.createQuery(query).setMaxResults(limit).getResultList()) {
+            summaries.add(new GameSummary(
+                    row.get(Field.ID.attribute(), Long.class),
+                    column(row, selected, Field.TITLE),
+                    column(row, selected, Field.THUMBNAIL_URL),
+                    column(row, selected, Field.GAME_URL),
+                    column(row, selected, Field.CATEGORY),
+                    row.get(Field.CREATED_AT.attribute(), LocalDateTime.class)));
+        }
+        return summaries;
+    }
+
+    private static String column(Tuple row, Set<Field> selected, Field field) {
+        return selected.contains(field) ? row.get(field.attribute(), String.class) : null;
+    }
+}
@@ -0,0 +1,236 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.entity.AssetBlob;
+import com.arcadex.api.game.entity.GameAsset;
+import com.arcadex.api.game.repository.AssetBlobRepository;
+import com.arcadex.api.game.repository.GameAssetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bookkeeping for content-addressed blobs. Game files are stored once under
+ * {@code blobs/{sha256}} and every {@link GameAsset} pointing at a blob holds one reference to
+ * it. A blob row is written as soon as its bytes are in storage; references are only added in
+ * the transaction that saves the game, so blobs left behind by a failed upload stay at zero until
+ * {@link #sweepUnreferenced()} deletes them.
+ */
+@Service
+public class AssetBlobService {
+
+    private static final Logger log = LoggerFactory.getLogger(AssetBlobService.class);
+
+    public static final String BLOB_PREFIX = "blobs/";
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    private final AssetBlobRepository assetBlobRepository;
+    private final GameAssetRepository gameAssetRepository;
+    private final ObjectStorageService objectStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration unreferencedGrace;
+
+    public AssetBlobService(AssetBlobRepository assetBlobRepository, GameAssetRepository gameAssetRepository,
+                            ObjectStorageService objectStorageService, TransactionTemplate transactionTemplate,
+                            @Value("${game.blobs.unreferenced-grace-minutes:1440}") long unreferencedGraceMinutes) {
+        this.assetBlobRepository = assetBlobRepository;
+        this.gameAssetRepository = gameAssetRepository;
+        this.objectStorageService = objectStorageService;
+        this.transactionTemplate = transactionTemplate;
+        this.unreferencedGrace = Duration.ofMinutes(unreferencedGraceMinutes);
+    }
+
+    public static String objectNameOf(String contentHash) {
+        return BLOB_PREFIX + contentHash;
+    }
+
+    public Optional<AssetBlob> find(String contentHash) {
+        return assetBlobRepository.findById(contentHash);
+    }
+
+    /**
+     * Looks up many blobs in one query.
+     *
+     * @return the stored blobs by content hash; hashes not in storage are absent
+     */
+    public Map<String, AssetBlob> findAll(Collection<String> contentHashes) {
+        Map<String, AssetBlob> found = new LinkedHashMap<>();
+        for (AssetBlob blob : assetBlobRepository.findAllById(contentHashes)) {
+            found.put(blob.getContentHash(), blob);
+        }
+        return found;
+    }
+
+    /**
+     * Records that a blob's bytes are now in storage. Two uploads of the same new content may
+     * both get here; the second insert loses and is ignored.
+     */
+    public void registerBlob(String contentHash, long size, Long gzipSize) {
+        if (assetBlobRepository.existsById(contentHash)) {
+            return;
+        }
+        try {
+            assetBlobRepository.saveAndFlush(new AssetBlob(contentHash, size, gzipSize, 0));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Blob {} was registered concurrently", contentHash);
+        }
+    }
+
+    /**
+     * Adds one reference per blob-backed asset. Must run in the transaction that saves the assets.
+     */
+    @Transactional
+    public void addReferences(Collection<GameAsset> assets) {
+        for (Map.Entry<String, Integer> entry : countBlobReferences(assets).entrySet()) {
+            if (assetBlobRepository.adjustReferences(entry.getKey(), entry.getValue()) == 0) {
+                throw new IllegalStateException("Blob is not registered: " + entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Removes every asset of a game, dropping its blob references and deleting objects that no
+     * game references any more. Storage is only touched after the rows are gone.
+     */
+    public void releaseGame(String gameUuid) throws IOException, InterruptedException {
+        List<String> unreferenced = transactionTemplate.execute(status -> {
+            List<GameAsset> assets = gameAssetRepository.findByGameUuid(gameUuid);
+            List<String> objectNames = new ArrayList<>();
+            Map<String, Integer> references = countBlobReferences(assets);
+
+            for (GameAsset asset : assets) {
+                String storageObjectName = asset.getStorageObjectName();
+                if (isBlobBacked(asset) || objectNames.contains(storageObjectName)) {
+                    continue;
+                }
+                // a bundle carries its gzip variants inside; standalone objects have them alongside
+                addWithVariant(objectNames, storageObjectName,
+                        asset.hasGzipVariant() && storageObjectName.equals(asset.getObjectName()));
+            }
+            for (Map.Entry<String, Integer> entry : references.entrySet()) {
+                String contentHash = entry.getKey();
+                assetBlobRepository.adjustReferences(contentHash, -entry.getValue());
+                Optional<AssetBlob> blob = assetBlobRepository.findById(contentHash);
+                if (assetBlobRepository.deleteIfUnreferenced(contentHash) > 0) {
+                    addWithVariant(objectNames, objectNameOf(contentHash),
+                            blob.map(AssetBlob::getGzipSize).isPresent());
+                }
+            }
+            gameAssetRepository.deleteAll(assets);
+            return objectNames;
+        });
+
+        for (String objectName : unreferenced) {
+            objectStorageService.deleteFile(objectName);
+        }
+        log.info("Released assets of game {}: {} objects deleted", gameUuid, unreferenced.size());
+    }
+
+    /**
+     * Drops the rows of blobs a failed upload stored, unless a game has referenced them meanwhile.
+     * A blob whose bytes went up but that was never registered has no row and counts as dropped.
+     *
+     * @return the object names, with gzip variants, that the caller should delete from storage
+     */
+    public List<String> dropUnreferenced(Collection<String> contentHashes) {
+        return transactionTemplate.execute(status -> {
+            List<String> objectNames = new ArrayList<>();
+            for (String contentHash : contentHashes) {
+                Optional<AssetBlob> blob = assetBlobRepository.findById(contentHash);
+                if (blob.isEmpty()) {
+                    addWithVariant(objectNames, objectNameOf(contentHash), true);
+                } else if (assetBlobRepository.deleteIfUnreferenced(contentHash) > 0) {
+                    addWithVariant(objectNames, objectNameOf(contentHash), blob.get().getGzipSize() != null);
+                }
+            }
+            return objectNames;
+        });
+    }
+
+    /**
+     * Deletes blobs that have had no reference for longer than the grace period, such as those a
+     * failed upload left behind. The grace period keeps blobs that an upload in flight has just
+     * stored or decided to reuse; an upload that reuses a blob swept meanwhile fails when it saves.
+     *
+     * @return the number of blob rows deleted; an object that fails to delete is logged and left
+     */
+    public int sweepUnreferenced() throws InterruptedException {
+        LocalDateTime createdBefore = LocalDateTime.now().minus(unreferencedGrace);
+        int swept = 0;
+        List<AssetBlob> candidates;
+        do {
+            candidates = assetBlobRepository.findUnreferencedCreatedBefore(createdBefore, Limit.of(SWEEP_BATCH_SIZE));
+            List<AssetBlob> batch = candidates;
+            List<AssetBlob> deleted = transactionTemplate.execute(status -> batch.stream()
+                    // the count is checked again here, in case an upload has referenced the blob since
+                    .filter(blob -> assetBlobRepository.deleteIfUnreferenced(blob.getContentHash()) > 0)
+                    .toList());
+            for (AssetBlob blob : deleted) {
+                List<String> objectNames = new ArrayList<>();
+                addWithVariant(objectNames, objectNameOf(blob.getContentHash()), blob.getGzipSize() != null);
+                for (String objectName : objectNames) {
+                    try {
+                        objectStorageService.deleteFile(objectName);
+                    } catch (IOException e) {
+                        log.warn("Failed to delete unreferenced blob {}", objectName, e);
+                    }
+                }
+            }
+            swept += deleted.size();
+        } while (candidates.size() == SWEEP_BATCH_SIZE);
+
+        if (swept > 0) {
+            log.info("Swept {} unreferenced blobs", swept);
+        }
+        return swept;
+    }
+
+    @Scheduled(initialDelayString = "${game.blobs.sweep-interval-minutes:60}",
+            fixedDelayString = "${game.blobs.sweep-interval-minutes:60}", timeUnit = TimeUnit.MINUTES)
+    public void sweepUnreferencedOnSchedule() {
+        try {
+            sweepUnreferenced();
+        } catch (RuntimeException e) {
+            log.warn("Failed to sweep unreferenced blobs", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, Integer> countBlobReferences(Collection<GameAsset> assets) {
+        Map<String, Integer> references = new LinkedHashMap<>();
+        for (GameAsset asset : assets) {
+            if (isBlobBacked(asset)) {
+                references.merge(asset.getContentHash(), 1, Integer::sum);
+            }
+        }
+        return references;
+    }
+
+    private static boolean isBlobBacked(GameAsset asset) {
+        return asset.getStorageObjectName().startsWith(BLOB_PREFIX);
+    }
+
+    private static void addWithVariant(List<String> objectNames, String objectName, boolean hasGzipVariant) {
+        objectNames.add(objectName);
+        if (hasGzipVariant) {
+            objectNames.add(objectName + GameUploadService.GZIP_SUFFIX);
+        }
+    }
+}
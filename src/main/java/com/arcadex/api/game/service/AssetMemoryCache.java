@@ -0,0 +1,104 @@
+package com.arcadex.api.game.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * In-heap cache for small, frequently requested assets (html, css, small scripts, icons).
+ * It is bounded by total bytes rather than entry count. Caffeine's W-TinyLFU admission only
+ * lets a new entry displace a resident one when it has been requested more often, so a burst
+ * of one-off downloads cannot flush the hot set.
+ */
+@Component
+public class AssetMemoryCache {
+
+    private final boolean enabled;
+    private final long maxEntryBytes;
+    private final Cache<String, CachedBytes> cache;
+    private final SingleFlight<String, CachedBytes> loads;
+
+    @Autowired
+    public AssetMemoryCache(@Value("${files.memory-cache.enabled:true}") boolean enabled,
+                            @Value("${files.memory-cache.max-bytes:67108864}") long maxBytes,
+                            @Value("${files.memory-cache.max-entry-bytes:262144}") long maxEntryBytes,
+                            MeterRegistry meterRegistry) {
+        this(enabled, maxBytes, maxEntryBytes, meterRegistry, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param maintenanceExecutor runs Caffeine's eviction; tests pass {@code Runnable::run} to evict on the spot
+     */
+    AssetMemoryCache(boolean enabled, long maxBytes, long maxEntryBytes, MeterRegistry meterRegistry,
+                     Executor maintenanceExecutor) {
+        this.enabled = enabled;
+        this.maxEntryBytes = maxEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .executor(maintenanceExecutor)
+                .maximumWeight(maxBytes)
+                .weigher((String objectName, CachedBytes value) -> value.content().length)
+                .recordStats()
+                .build();
+
+        this.loads = new SingleFlight<>("memory-cache", meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "files.memory-cache");
+        Gauge.builder("files.memory-cache.bytes", this, AssetMemoryCache::getWeightedSize)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    public boolean accepts(long size) {
+        return enabled && size >= 0 && size <= maxEntryBytes;
+    }
+
+    public CachedBytes get(String objectName) {
+        return enabled ? cache.getIfPresent(objectName) : null;
+    }
+
+    public void put(String objectName, CachedBytes value) {
+        if (accepts(value.content().length)) {
+            cache.put(objectName, value);
+        }
+    }
+
+    /**
+     * Returns the cached bytes, running {@code loader} on a miss. Concurrent misses for the same
+     * object share a single load, whose result is fanned out to every waiter and then cached.
+     */
+    public CachedBytes getOrLoad(String objectName, SingleFlight.Loader<CachedBytes> loader)
+            throws IOException, InterruptedException {
+        CachedBytes cached = get(objectName);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.execute(objectName, () -> {
+            CachedBytes loaded = cache.getIfPresent(objectName);
+            if (loaded == null) {
+                loaded = loader.load();
+                if (loaded != null) {
+                    put(objectName, loaded);
+                }
+            }
+            return loaded;
+        });
+    }
+
+    public long getWeightedSize() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    public record CachedBytes(byte[] content, String eTag, String lastModified) {}
+}
@@ -0,0 +1,43 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.entity.GameAsset;
+import com.arcadex.api.game.repository.GameAssetRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Looks up the metadata recorded for each uploaded object. Uploaded objects never change, so
+ * lookups are cached in memory; objects uploaded before metadata was recorded are remembered as
+ * absent for a short while.
+ */
+@Service
+public class AssetMetadataService {
+
+    private final GameAssetRepository gameAssetRepository;
+    private final Cache<String, Optional<GameAsset>> cache;
+
+    public AssetMetadataService(GameAssetRepository gameAssetRepository,
+                                @Value("${files.metadata-cache.max-entries:100000}") long maxEntries) {
+        this.gameAssetRepository = gameAssetRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build();
+    }
+
+    public Optional<GameAsset> find(String objectName) {
+        return cache.get(objectName, gameAssetRepository::findByObjectName);
+    }
+
+    /**
+     * Forgets a cached lookup, e.g. after an object was recorded that may have been cached as absent.
+     */
+    public void invalidate(String objectName) {
+        cache.invalidate(objectName);
+    }
+}
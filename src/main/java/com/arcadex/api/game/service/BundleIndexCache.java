@@ -0,0 +1,113 @@
+package com.arcadex.api.game.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the index of each {@link GameBundle} in memory so a file can be located with no extra
+ * storage round trip. Bundles are immutable, so an index never goes stale; a miss costs two
+ * small ranged reads, shared by concurrent requests for the same bundle.
+ */
+@Component
+public class BundleIndexCache {
+
+    private final ObjectStorageService objectStorageService;
+    private final Cache<String, Map<String, GameBundle.Entry>> cache;
+    private final SingleFlight<String, Map<String, GameBundle.Entry>> loads;
+
+    public BundleIndexCache(ObjectStorageService objectStorageService,
+                            @Value("${files.bundle-index-cache.max-entries:1000}") long maxEntries,
+                            MeterRegistry meterRegistry) {
+        this.objectStorageService = objectStorageService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+        this.loads = new SingleFlight<>("bundle-index", meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "files.bundle-index-cache");
+    }
+
+    /**
+     * @return where the requested representation of {@code objectName} lives in the bundle, or null
+     * if the bundle has no such file or no gzip variant of it
+     */
+    public Slice find(String bundleName, String objectName, boolean gzip) throws IOException, InterruptedException {
+        GameBundle.Entry entry = index(bundleName).get(objectName);
+        if (entry == null) {
+            return null;
+        }
+        if (gzip) {
+            return entry.gzipSize() != null ? new Slice(bundleName, entry.gzipOffset(), entry.gzipSize()) : null;
+        }
+        return new Slice(bundleName, entry.offset(), entry.size());
+    }
+
+    /**
+     * Reads bytes {@code start} to {@code end} (inclusive, relative to the slice) from storage.
+     */
+    public ObjectDownload open(Slice slice, long start, long end) throws IOException, InterruptedException {
+        ObjectDownload download = objectStorageService.openDownload(slice.bundleName(),
+                "bytes=" + (slice.offset() + start) + "-" + (slice.offset() + end));
+        if (!download.isPartial()) {
+            download.close();
+            throw new IOException("Storage ignored the range request for " + slice.bundleName());
+        }
+        return download;
+    }
+
+    public byte[] read(Slice slice) throws IOException, InterruptedException {
+        if (slice.length() == 0) {
+            return new byte[0];
+        }
+        try (ObjectDownload download = open(slice, 0, slice.length() - 1)) {
+            return download.getInputStream().readAllBytes();
+        }
+    }
+
+    private Map<String, GameBundle.Entry> index(String bundleName) throws IOException, InterruptedException {
+        Map<String, GameBundle.Entry> index = cache.getIfPresent(bundleName);
+        if (index != null) {
+            return index;
+        }
+        return loads.execute(bundleName, () -> {
+            Map<String, GameBundle.Entry> loaded = cache.getIfPresent(bundleName);
+            if (loaded == null) {
+                loaded = load(bundleName);
+                cache.put(bundleName, loaded);
+            }
+            return loaded;
+        });
+    }
+
+    private Map<String, GameBundle.Entry> load(String bundleName) throws IOException, InterruptedException {
+        GameBundle.Trailer trailer;
+        try (ObjectDownload download = objectStorageService.openDownload(bundleName, "bytes=-" + GameBundle.TRAILER_SIZE)) {
+            if (!download.isPartial()) {
+                throw new IOException("Storage ignored the range request for " + bundleName);
+            }
+            trailer = GameBundle.parseTrailer(download.getInputStream().readAllBytes());
+        }
+
+        Slice indexSlice = new Slice(bundleName, trailer.indexOffset(), trailer.indexLength());
+        Map<String, GameBundle.Entry> index = new HashMap<>();
+        for (GameBundle.Entry entry : GameBundle.parseIndex(read(indexSlice))) {
+            index.put(entry.objectName(), entry);
+        }
+        return index;
+    }
+
+    /**
+     * A contiguous byte range of a bundle object.
+     */
+    public record Slice(String bundleName, long offset, long length) {
+    }
+}
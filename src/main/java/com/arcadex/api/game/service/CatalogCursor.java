@@ -0,0 +1,46 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.dto.GameSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the catalog: the {@code (createdAt, id)} of the last game a page returned. Clients
+ * get it as an opaque token and send it back to fetch the next page.
+ */
+public record CatalogCursor(LocalDateTime createdAt, long id) {
+
+    /** Starts a newest-first listing; no game is created after it. */
+    static final CatalogCursor NEWEST_FIRST = new CatalogCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+    /** Starts an oldest-first listing; no game is created before it. */
+    static final CatalogCursor OLDEST_FIRST = new CatalogCursor(LocalDateTime.of(1970, 1, 1, 0, 0), Long.MIN_VALUE);
+
+    public static CatalogCursor after(GameSummary game) {
+        return new CatalogCursor(game.createdAt(), game.id());
+    }
+
+    public String encode() {
+        String plain = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code token} was not produced by {@link #encode()}
+     */
+    public static CatalogCursor decode(String token) {
+        try {
+            String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = plain.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new CatalogCursor(LocalDateTime.parse(plain.substring(0, separator)),
+                    Long.parseLong(plain.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
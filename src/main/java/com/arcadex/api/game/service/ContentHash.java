@@ -0,0 +1,32 @@
+package com.arcadex.api.game.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 helpers shared by the upload path and the asset caches, so both agree on how an
+ * object's content hash is spelled.
+ */
+final class ContentHash {
+
+    private ContentHash() {}
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static String of(byte[] content) {
+        MessageDigest digest = newDigest();
+        digest.update(content);
+        return toHex(digest);
+    }
+}
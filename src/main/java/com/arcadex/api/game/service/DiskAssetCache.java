@@ -0,0 +1,409 @@
+package com.arcadex.api.game.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Size-bounded, content-addressed disk cache in front of object storage. Objects are stored
+ * under the SHA-256 of their bytes, so identical files shared by several games occupy disk
+ * once. Entries are evicted least-recently-used first, and a miss is fetched from storage by
+ * exactly one caller while concurrent requests for the same object wait for that fill. A client
+ * download streamed straight from storage can fill the cache as it goes instead, see
+ * {@link #fillWhileStreaming}.
+ * <p>
+ * Objects over {@code files.disk-cache.max-object-bytes} are never cached. Callers that know an
+ * object's size check {@link #accepts} first; objects found to be too large while fetching are
+ * remembered, so they are not downloaded again just to learn that.
+ */
+@Component
+public class DiskAssetCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskAssetCache.class);
+    private static final String FILL_PREFIX = "fill-";
+    private static final int MAX_OVERSIZED_ENTRIES = 10_000;
+
+    private final ObjectStorageService objectStorageService;
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxBytes;
+    private final long maxObjectBytes;
+
+    // objectName -> cached asset, in access order; guarded by this
+    private final LinkedHashMap<String, CachedAsset> index = new LinkedHashMap<>(16, 0.75f, true);
+    // contentHash -> number of object names pointing at that blob; guarded by this
+    private final Map<String, Integer> blobReferences = new HashMap<>();
+    private long usedBytes;
+
+    private final SingleFlight<String, CachedAsset> fills;
+    // objects being cached by fillWhileStreaming
+    private final Set<String> streamingFills = ConcurrentHashMap.newKeySet();
+    // objects found to be over maxObjectBytes; storage objects are never rewritten under the same name
+    private final Set<String> oversized = ConcurrentHashMap.newKeySet();
+    private final ExecutorService prefetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public DiskAssetCache(ObjectStorageService objectStorageService,
+                          @Value("${files.disk-cache.enabled:true}") boolean enabled,
+                          @Value("${files.disk-cache.directory:${java.io.tmpdir}/arcadex-asset-cache}") String directory,
+                          @Value("${files.disk-cache.max-bytes:1073741824}") long maxBytes,
+                          @Value("${files.disk-cache.max-object-bytes:67108864}") long maxObjectBytes,
+                          MeterRegistry meterRegistry) {
+        this.objectStorageService = objectStorageService;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.maxBytes = maxBytes;
+        this.maxObjectBytes = Math.min(maxObjectBytes, maxBytes);
+
+        this.hits = Counter.builder("files.disk-cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("files.disk-cache.requests").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("files.disk-cache.evictions").register(meterRegistry);
+        this.fills = new SingleFlight<>("disk-cache", meterRegistry);
+        Gauge.builder("files.disk-cache.bytes", this, DiskAssetCache::getUsedBytes).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void initialize() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        // The index lives in memory only, so blobs left over from a previous run are unreachable.
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(FILL_PREFIX) || name.matches("[a-f0-9]{64}")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        log.info("Disk asset cache enabled: directory={}, maxBytes={}", directory, maxBytes);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    public synchronized long getUsedBytes() { return usedBytes; }
+
+    /**
+     * @param size the object size, or -1 if unknown
+     * @return whether an object of this size can be cached at all
+     */
+    public boolean accepts(long size) {
+        return enabled && size <= maxObjectBytes;
+    }
+
+    /**
+     * @return the cached asset, or null if the object is not on disk yet
+     */
+    public CachedAsset getIfPresent(String objectName) {
+        CachedAsset cached = lookup(objectName);
+        (cached != null ? hits : misses).increment();
+        return cached;
+    }
+
+    /**
+     * Returns the cached asset, filling it from storage on a miss. Concurrent misses for the same
+     * object share one fill.
+     *
+     * @return the cached asset, or null if the object is too large to cache
+     */
+    public CachedAsset getOrFetch(String objectName) throws IOException, InterruptedException {
+        CachedAsset cached = getIfPresent(objectName);
+        if (cached != null || oversized.contains(objectName)) {
+            return cached;
+        }
+
+        return fills.execute(objectName, () -> {
+            // a fill that finished between the lookup above and joining the flight
+            CachedAsset filled = lookup(objectName);
+            return filled != null ? filled : fetch(objectName);
+        });
+    }
+
+    /**
+     * Fills the cache in the background, e.g. after a ranged request was served straight from storage.
+     */
+    public void prefetch(String objectName) {
+        if (!enabled || oversized.contains(objectName) || lookup(objectName) != null || isFilling(objectName)) {
+            return;
+        }
+        prefetchExecutor.execute(() -> {
+            try {
+                getOrFetch(objectName);
+            } catch (Exception e) {
+                log.debug("Background cache fill failed for {}", objectName, e);
+            }
+        });
+    }
+
+    /**
+     * Wraps a whole-object download that is about to be streamed to a client so that the same
+     * bytes also fill the cache, rather than the client waiting for a fill or the object being
+     * downloaded twice. The entry is registered once the body has been read to its end; a body
+     * closed early, or found to be too large, leaves nothing behind, and failing to write the
+     * cache file never fails the client's stream. Only one such fill runs per object, and none
+     * while a regular fill is in flight; the download is then returned unchanged.
+     */
+    public ObjectDownload fillWhileStreaming(String objectName, ObjectDownload download) {
+        if (!accepts(download.getContentLength()) || download.isPartial() || oversized.contains(objectName)
+                || lookup(objectName) != null || fills.isInFlight(objectName) || !streamingFills.add(objectName)) {
+            return download;
+        }
+        Path temp;
+        OutputStream out;
+        MessageDigest digest = ContentHash.newDigest();
+        try {
+            temp = Files.createTempFile(directory, FILL_PREFIX, ".tmp");
+            out = new DigestOutputStream(Files.newOutputStream(temp), digest);
+        } catch (IOException e) {
+            streamingFills.remove(objectName);
+            log.debug("Could not start a cache fill for {}", objectName, e);
+            return download;
+        }
+        InputStream filling = new StreamingFill(download.getInputStream(), objectName, temp, out, digest,
+                download.getETag(), download.getLastModified());
+        return new ObjectDownload(filling, download.getContentLength(), null,
+                download.getETag(), download.getLastModified());
+    }
+
+    private boolean isFilling(String objectName) {
+        return fills.isInFlight(objectName) || streamingFills.contains(objectName);
+    }
+
+    private synchronized CachedAsset lookup(String objectName) {
+        return index.get(objectName);
+    }
+
+    private void markOversized(String objectName) {
+        if (oversized.size() >= MAX_OVERSIZED_ENTRIES) {
+            oversized.clear();
+        }
+        oversized.add(objectName);
+    }
+
+    private CachedAsset fetch(String objectName) throws IOException, InterruptedException {
+        try (ObjectDownload download = objectStorageService.openDownload(objectName)) {
+            if (download.getContentLength() > maxObjectBytes) {
+                markOversized(objectName);
+                return null;
+            }
+
+            Path temp = Files.createTempFile(directory, FILL_PREFIX, ".tmp");
+            try {
+                MessageDigest digest = ContentHash.newDigest();
+                long size = 0;
+                try (InputStream in = download.getInputStream();
+                     OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                    byte[] buffer = new byte[8192];
+                    int len;
+                    while ((len = in.read(buffer)) != -1) {
+                        size += len;
+                        if (size > maxObjectBytes) {
+                            markOversized(objectName);
+                            return null;
+                        }
+                        out.write(buffer, 0, len);
+                    }
+                }
+
+                String contentHash = ContentHash.toHex(digest);
+                return register(objectName, contentHash, temp, size, download.getETag(), download.getLastModified());
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private synchronized CachedAsset register(String objectName, String contentHash, Path filled, long size,
+                                              String eTag, String lastModified) throws IOException {
+        Path blob = directory.resolve(contentHash);
+        int references = blobReferences.getOrDefault(contentHash, 0);
+        if (references == 0) {
+            Files.move(filled, blob, StandardCopyOption.ATOMIC_MOVE);
+            usedBytes += size;
+        }
+        blobReferences.put(contentHash, references + 1);
+
+        CachedAsset asset = new CachedAsset(objectName, contentHash, blob, size, eTag, lastModified);
+        CachedAsset previous = index.put(objectName, asset);
+        if (previous != null) {
+            release(previous);
+        }
+
+        evictIfNeeded(objectName);
+        return asset;
+    }
+
+    private void evictIfNeeded(String keep) throws IOException {
+        Iterator<Map.Entry<String, CachedAsset>> eldest = index.entrySet().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, CachedAsset> entry = eldest.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            eldest.remove();
+            release(entry.getValue());
+            evictions.increment();
+        }
+    }
+
+    private void release(CachedAsset asset) throws IOException {
+        int references = blobReferences.getOrDefault(asset.contentHash(), 0) - 1;
+        if (references > 0) {
+            blobReferences.put(asset.contentHash(), references);
+            return;
+        }
+        blobReferences.remove(asset.contentHash());
+        usedBytes -= asset.size();
+        // Readers that already opened the blob keep their file handle after the unlink.
+        Files.deleteIfExists(asset.file());
+    }
+
+    /**
+     * Copies what the client reads into the cache file, and registers it at end of stream.
+     */
+    private final class StreamingFill extends FilterInputStream {
+
+        private final String objectName;
+        private final Path temp;
+        private final MessageDigest digest;
+        private final String eTag;
+        private final String lastModified;
+        // null once the fill has finished or been abandoned
+        private OutputStream out;
+        private long size;
+
+        StreamingFill(InputStream in, String objectName, Path temp, OutputStream out, MessageDigest digest,
+                      String eTag, String lastModified) {
+            super(in);
+            this.objectName = objectName;
+            this.temp = temp;
+            this.out = out;
+            this.digest = digest;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                finish();
+            } else {
+                copy(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n == -1) {
+                finish();
+            } else {
+                copy(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                abandon();
+            }
+        }
+
+        private void copy(byte[] b, int off, int len) {
+            if (out == null) {
+                return;
+            }
+            size += len;
+            if (size > maxObjectBytes) {
+                markOversized(objectName);
+                abandon();
+                return;
+            }
+            try {
+                out.write(b, off, len);
+            } catch (IOException e) {
+                log.debug("Cache fill for {} failed", objectName, e);
+                abandon();
+            }
+        }
+
+        private void finish() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.close();
+                out = null;
+                register(objectName, ContentHash.toHex(digest), temp, size, eTag, lastModified);
+            } catch (IOException e) {
+                log.debug("Cache fill for {} failed", objectName, e);
+            } finally {
+                abandon();
+            }
+        }
+
+        private void abandon() {
+            try {
+                if (out != null) {
+                    out.close();
+                    out = null;
+                }
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.debug("Failed to delete abandoned cache fill {}", temp, e);
+            } finally {
+                streamingFills.remove(objectName);
+            }
+        }
+    }
+
+    public record CachedAsset(String objectName, String contentHash, Path file, long size,
+                              String eTag, String lastModified) {
+
+        public FileChannel open() throws IOException {
+            return FileChannel.open(file, StandardOpenOption.READ);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.arcadex.api.game.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides whether a file is proxied through the JVM or answered with a redirect to a signed
+ * storage URL, and counts requests and bytes for each mode. Redirects apply to objects at or above
+ * {@code files.redirect.min-size-bytes} and to every object under one of
+ * {@code files.redirect.path-prefixes}. Revalidations answered with 304 are counted apart from
+ * both, since they send no body whichever mode the file would have been served in.
+ */
+@Component
+public class FileServingPolicy {
+
+    private final boolean redirectEnabled;
+    private final long redirectMinSize;
+    private final List<String> redirectPrefixes;
+    private final int signedUrlTtlSeconds;
+
+    private final Counter proxiedRequests;
+    private final Counter proxiedBytes;
+    private final Counter redirectedRequests;
+    private final Counter redirectedBytes;
+    private final Counter notModifiedRequests;
+
+    public FileServingPolicy(@Value("${files.redirect.enabled:false}") boolean redirectEnabled,
+                             @Value("${files.redirect.min-size-bytes:1048576}") long redirectMinSize,
+                             @Value("${files.redirect.path-prefixes:}") String redirectPrefixes,
+                             @Value("${files.redirect.signed-url-ttl-seconds:900}") int signedUrlTtlSeconds,
+                             MeterRegistry meterRegistry) {
+        this.redirectEnabled = redirectEnabled;
+        this.redirectMinSize = redirectMinSize;
+        this.redirectPrefixes = Arrays.stream(redirectPrefixes.split(","))
+                .map(String::trim)
+                .filter(prefix -> !prefix.isEmpty())
+                .toList();
+        this.signedUrlTtlSeconds = signedUrlTtlSeconds;
+
+        this.proxiedRequests = Counter.builder("files.served.requests").tag("mode", "proxy").register(meterRegistry);
+        this.proxiedBytes = Counter.builder("files.served.bytes").tag("mode", "proxy").register(meterRegistry);
+        this.redirectedRequests = Counter.builder("files.served.requests").tag("mode", "redirect").register(meterRegistry);
+        this.redirectedBytes = Counter.builder("files.served.bytes").tag("mode", "redirect").register(meterRegistry);
+        this.notModifiedRequests = Counter.builder("files.served.requests").tag("mode", "not-modified").register(meterRegistry);
+    }
+
+    public int getSignedUrlTtlSeconds() { return signedUrlTtlSeconds; }
+
+    /**
+     * @param size the object size from upload metadata, or -1 if unknown
+     */
+    public boolean shouldRedirect(String objectName, long size) {
+        if (!redirectEnabled) {
+            return false;
+        }
+        if (size >= 0 && size >= redirectMinSize) {
+            return true;
+        }
+        return redirectPrefixes.stream().anyMatch(objectName::startsWith);
+    }
+
+    public void recordProxied(long bytes) {
+        proxiedRequests.increment();
+        if (bytes > 0) {
+            proxiedBytes.increment(bytes);
+        }
+    }
+
+    public void recordNotModified() {
+        notModifiedRequests.increment();
+    }
+
+    public void recordRedirected(long bytes) {
+        redirectedRequests.increment();
+        if (bytes > 0) {
+            redirectedBytes.increment(bytes);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.arcadex.api.game.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Validates a game archive from its central directory alone, before a single entry is
+ * decompressed or uploaded. Only the declared sizes are checked here; the upload still caps
+ * the bytes it actually inflates in case the directory lies.
+ */
+final class GameArchiveScanner {
+
+    private static final Logger log = LoggerFactory.getLogger(GameArchiveScanner.class);
+
+    static final int MAX_ENTRY_COUNT = 500;
+    static final long MAX_TOTAL_UNCOMPRESSED_SIZE = 200L * 1024 * 1024;
+    static final long MAX_SINGLE_ENTRY_SIZE = 50L * 1024 * 1024;
+
+    // Deflate tops out around 1000:1; real game assets rarely pass 20:1.
+    static final long MAX_COMPRESSION_RATIO = 100;
+    // Tiny entries (blank sprites, padding) may compress absurdly well without being dangerous.
+    static final long MIN_RATIO_CHECKED_SIZE = 1024 * 1024;
+
+    private GameArchiveScanner() {
+    }
+
+    /**
+     * An entry that passed the scan, with its sanitized path relative to the game root.
+     */
+    record ScannedEntry(ZipEntry entry, String path) {
+    }
+
+    static List<ScannedEntry> scan(ZipFile zipFile) throws InvalidGameArchiveException {
+        List<ScannedEntry> accepted = new ArrayList<>();
+        Set<String> paths = new HashSet<>();
+        long totalSize = 0;
+        long totalCompressedSize = 0;
+
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (entry.isDirectory()) {
+                continue;
+            }
+
+            String entryName = entry.getName();
+
+            if (entryName.startsWith("__MACOSX/") || entryName.startsWith("._")) {
+                continue;
+            }
+
+            String sanitizedName = sanitizeEntryName(entryName);
+            if (sanitizedName == null) {
+                log.warn("Skipping unsafe zip entry: {}", entryName);
+                continue;
+            }
+            if (!paths.add(sanitizedName)) {
+                throw new InvalidGameArchiveException("Zip file contains duplicate entry: " + sanitizedName);
+            }
+
+            if (accepted.size() >= MAX_ENTRY_COUNT) {
+                throw new InvalidGameArchiveException("Zip file contains too many entries (max: " + MAX_ENTRY_COUNT + ")");
+            }
+
+            long size = entry.getSize();
+            long compressedSize = entry.getCompressedSize();
+            if (size < 0 || compressedSize < 0) {
+                throw new InvalidGameArchiveException("Zip entry does not declare its size: " + sanitizedName);
+            }
+            if (size > MAX_SINGLE_ENTRY_SIZE) {
+                throw new InvalidGameArchiveException("Single zip entry exceeds size limit (max: "
+                        + (MAX_SINGLE_ENTRY_SIZE / 1024 / 1024) + "MB)");
+            }
+            if (size >= MIN_RATIO_CHECKED_SIZE && size > compressedSize * MAX_COMPRESSION_RATIO) {
+                throw new InvalidGameArchiveException("Zip entry has a suspicious compression ratio: " + sanitizedName);
+            }
+
+            totalSize += size;
+            totalCompressedSize += compressedSize;
+            if (totalSize > MAX_TOTAL_UNCOMPRESSED_SIZE) {
+                throw new InvalidGameArchiveException("Zip file total uncompressed size exceeds limit (max: "
+                        + (MAX_TOTAL_UNCOMPRESSED_SIZE / 1024 / 1024) + "MB)");
+            }
+
+            accepted.add(new ScannedEntry(entry, sanitizedName));
+        }
+
+        if (totalSize >= MIN_RATIO_CHECKED_SIZE && totalSize > totalCompressedSize * MAX_COMPRESSION_RATIO) {
+            throw new InvalidGameArchiveException("Zip file has a suspicious compression ratio");
+        }
+        return accepted;
+    }
+
+    static String sanitizeEntryName(String entryName) {
+        if (entryName == null || entryName.isBlank()) {
+            return null;
+        }
+
+        if (entryName.contains("..") || entryName.contains("\\")) {
+            return null;
+        }
+
+        if (entryName.startsWith("/")) {
+            return null;
+        }
+
+        Path normalized = Paths.get(entryName).normalize();
+        String normalizedStr = normalized.toString();
+
+        if (normalizedStr.startsWith("..") || normalizedStr.startsWith("/")) {
+            return null;
+        }
+
+        if (normalizedStr.length() > 255) {
+            return null;
+        }
+
+        int depth = normalized.getNameCount();
+        if (depth > 10) {
+            return null;
+        }
+
+        return normalizedStr;
+    }
+}
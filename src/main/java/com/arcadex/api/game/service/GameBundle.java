@@ -0,0 +1,135 @@
+package com.arcadex.api.game.service;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Single-object layout for all files of a game. File bodies (and their gzip variants) are
+ * concatenated, followed by a JSON index and a fixed-size trailer:
+ *
+ * <pre>
+ * [file bytes ...][index json][index offset: long][index length: int][magic: 8 bytes]
+ * </pre>
+ *
+ * Keeping the index at the end lets the bundle be written in one sequential pass, and a reader
+ * only needs two ranged reads (trailer, then index) before it can serve any file.
+ */
+public final class GameBundle {
+
+    public static final String PREFIX = "bundles/";
+    public static final String CONTENT_TYPE = "application/octet-stream";
+    public static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES + 8;
+
+    private static final byte[] MAGIC = "ARCXBND1".getBytes(StandardCharsets.US_ASCII);
+    private static final Gson gson = new Gson();
+
+    private GameBundle() {
+    }
+
+    public static String objectNameOf(String gameId) {
+        return PREFIX + gameId + ".bundle";
+    }
+
+    public static boolean isBundle(String objectName) {
+        return objectName.startsWith(PREFIX);
+    }
+
+    /**
+     * One file in the bundle, keyed by the object name it is requested under. {@code gzipOffset}
+     * and {@code gzipSize} are null when no precompressed variant was stored.
+     */
+    public record Entry(String objectName, long offset, long size, String contentType, String contentHash,
+                        Long gzipOffset, Long gzipSize) {
+    }
+
+    record Trailer(long indexOffset, int indexLength) {
+    }
+
+    static Trailer parseTrailer(byte[] trailer) throws IOException {
+        if (trailer.length != TRAILER_SIZE
+                || !Arrays.equals(trailer, TRAILER_SIZE - MAGIC.length, TRAILER_SIZE, MAGIC, 0, MAGIC.length)) {
+            throw new IOException("Not a game bundle");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(trailer);
+        return new Trailer(buffer.getLong(), buffer.getInt());
+    }
+
+    static List<Entry> parseIndex(byte[] index) {
+        return gson.fromJson(new String(index, StandardCharsets.UTF_8), new TypeToken<List<Entry>>() {}.getType());
+    }
+
+    /**
+     * Writes a bundle to a stream. Bodies are appended with {@link #write(InputStream)} and
+     * recorded with {@link #index(Entry)}; closing the writer appends the index and trailer.
+     */
+    static final class Writer implements Closeable {
+
+        private final CountingOutputStream out;
+        private final List<Entry> entries = new ArrayList<>();
+
+        Writer(OutputStream out) {
+            this.out = new CountingOutputStream(out);
+        }
+
+        long position() {
+            return out.count;
+        }
+
+        /**
+         * @return the number of bytes appended
+         */
+        long write(InputStream in) throws IOException {
+            return in.transferTo(out);
+        }
+
+        void index(Entry entry) {
+            entries.add(entry);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (out) {
+                long indexOffset = position();
+                byte[] index = gson.toJson(entries).getBytes(StandardCharsets.UTF_8);
+                out.write(index);
+                out.write(ByteBuffer.allocate(TRAILER_SIZE)
+                        .putLong(indexOffset)
+                        .putInt(index.length)
+                        .put(MAGIC)
+                        .array());
+            }
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
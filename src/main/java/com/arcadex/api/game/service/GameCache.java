@@ -0,0 +1,286 @@
+package com.arcadex.api.game.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for catalog reads: an in-process tier in front of a Redis tier shared by all
+ * replicas, in front of the database.
+ * <p>
+ * An in-process entry is served as-is while it is fresh. After that, until it turns stale, it is
+ * still served while one background reload replaces it. Invalidations are applied locally and
+ * published to the other replicas over Redis pub/sub. Catalog pages are namespaced in Redis by a
+ * generation counter, so invalidating them all is one increment.
+ * <p>
+ * Redis is optional. Without it, or for a while after it fails, only the in-process tier is used
+ * and invalidations reach this replica alone.
+ */
+@Component
+public class GameCache {
+
+    private static final Logger log = LoggerFactory.getLogger(GameCache.class);
+
+    static final String CATALOG_PREFIX = "catalog:";
+    private static final String REDIS_PREFIX = "arcadex:games:";
+    private static final String GENERATION_KEY = REDIS_PREFIX + "catalog-generation";
+    private static final String INVALIDATION_CHANNEL = REDIS_PREFIX + "invalidations";
+    private static final String ALL_CATALOG_PAGES = "*";
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter().nullSafe())
+            .serializeNulls()
+            .create();
+
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Cache<String, Entry> near;
+    private final Ticker ticker;
+    private final long freshNanos;
+    private final Duration sharedTtl;
+    private final long retryAfterNanos;
+    private final Executor refreshExecutor;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong catalogGeneration = new AtomicLong();
+    // ticker time before which Redis is not tried again after a failure
+    private volatile long redisRetryAt;
+
+    private final Counter freshHits;
+    private final Counter staleHits;
+    private final Counter sharedHits;
+    private final Counter misses;
+    private final Counter redisFailures;
+
+    @Autowired
+    public GameCache(ObjectProvider<StringRedisTemplate> redis,
+                     ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                     @Value("${game.cache.fresh-seconds:10}") long freshSeconds,
+                     @Value("${game.cache.stale-seconds:300}") long staleSeconds,
+                     @Value("${game.cache.shared-ttl-seconds:60}") long sharedTtlSeconds,
+                     @Value("${game.cache.max-entries:10000}") long maxEntries,
+                     @Value("${cache.redis.retry-after-seconds:30}") long retryAfterSeconds,
+                     MeterRegistry meterRegistry) {
+        this(redis.getIfAvailable(), listenerContainer.getIfAvailable(), Duration.ofSeconds(freshSeconds),
+                Duration.ofSeconds(staleSeconds), Duration.ofSeconds(sharedTtlSeconds), maxEntries,
+                Duration.ofSeconds(retryAfterSeconds), meterRegistry, Ticker.systemTicker(),
+                Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    GameCache(StringRedisTemplate redis, RedisMessageListenerContainer listenerContainer, Duration fresh,
+              Duration stale, Duration sharedTtl, long maxEntries, Duration retryAfter, MeterRegistry meterRegistry,
+              Ticker ticker, Executor refreshExecutor) {
+        this.redis = redis;
+        this.listenerContainer = listenerContainer;
+        this.ticker = ticker;
+        this.freshNanos = fresh.toNanos();
+        this.sharedTtl = sharedTtl;
+        this.retryAfterNanos = retryAfter.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.near = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(stale.compareTo(fresh) > 0 ? stale : fresh)
+                .ticker(ticker)
+                .build();
+
+        this.freshHits = Counter.builder("game.cache.requests").tag("result", "fresh").register(meterRegistry);
+        this.staleHits = Counter.builder("game.cache.requests").tag("result", "stale").register(meterRegistry);
+        this.sharedHits = Counter.builder("game.cache.requests").tag("result", "shared").register(meterRegistry);
+        this.misses = Counter.builder("game.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.redisFailures = Counter.builder("game.cache.redis.failures").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(
+                    (message, pattern) -> onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(INVALIDATION_CHANNEL));
+        }
+        String generation = shared(() -> redis.opsForValue().get(GENERATION_KEY));
+        if (generation != null) {
+            catalogGeneration.set(Long.parseLong(generation));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (refreshExecutor instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the cached value for {@code key}, loading it through Redis and then {@code loader} on
+     * a miss. Keys starting with {@value #CATALOG_PREFIX} are dropped by {@link #invalidateCatalog()}.
+     * {@code loader} may return null, which is cached like any other value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Type type, Supplier<T> loader) {
+        Entry entry = near.getIfPresent(key);
+        if (entry != null) {
+            if (ticker.read() - entry.loadedAt() < freshNanos) {
+                freshHits.increment();
+            } else {
+                staleHits.increment();
+                refreshInBackground(key, entry, type, loader);
+            }
+            return (T) entry.value();
+        }
+
+        // Concurrent misses for one key share a single load.
+        return (T) near.get(key, k -> loadThrough(k, type, loader)).value();
+    }
+
+    /**
+     * Drops one entry here, in Redis and on every other replica.
+     */
+    public void invalidate(String key) {
+        near.invalidate(key);
+        shared(() -> redis.delete(redisKey(key)));
+        publish(key);
+    }
+
+    /**
+     * Drops every catalog page here, in Redis and on every other replica.
+     */
+    public void invalidateCatalog() {
+        invalidateLocalCatalog();
+        Long generation = shared(() -> redis.opsForValue().increment(GENERATION_KEY));
+        if (generation != null) {
+            catalogGeneration.accumulateAndGet(generation, Math::max);
+        }
+        publish(ALL_CATALOG_PAGES);
+    }
+
+    private void refreshInBackground(String key, Entry stale, Type type, Supplier<?> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    // an invalidation in the meantime removed the stale entry, and must win
+                    near.asMap().replace(key, stale, loadThrough(key, type, loader));
+                } catch (RuntimeException e) {
+                    log.warn("Background refresh of {} failed; serving the stale value", key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(key);
+            throw e;
+        }
+    }
+
+    private Entry loadThrough(String key, Type type, Supplier<?> loader) {
+        String redisKey = redisKey(key);
+        String json = shared(() -> redis.opsForValue().get(redisKey));
+        if (json != null) {
+            sharedHits.increment();
+            return new Entry(GSON.fromJson(json, type), ticker.read());
+        }
+
+        misses.increment();
+        Object value = loader.get();
+        String serialized = GSON.toJson(value, type);
+        shared(() -> {
+            redis.opsForValue().set(redisKey, serialized, sharedTtl);
+            return null;
+        });
+        return new Entry(value, ticker.read());
+    }
+
+    private void onInvalidation(String key) {
+        if (ALL_CATALOG_PAGES.equals(key)) {
+            invalidateLocalCatalog();
+            String generation = shared(() -> redis.opsForValue().get(GENERATION_KEY));
+            if (generation != null) {
+                catalogGeneration.accumulateAndGet(Long.parseLong(generation), Math::max);
+            }
+        } else {
+            near.invalidate(key);
+        }
+    }
+
+    private void invalidateLocalCatalog() {
+        near.asMap().keySet().removeIf(key -> key.startsWith(CATALOG_PREFIX));
+    }
+
+    private void publish(String key) {
+        shared(() -> redis.convertAndSend(INVALIDATION_CHANNEL, key));
+    }
+
+    private String redisKey(String key) {
+        return key.startsWith(CATALOG_PREFIX)
+                ? REDIS_PREFIX + catalogGeneration.get() + ":" + key
+                : REDIS_PREFIX + key;
+    }
+
+    /**
+     * Runs a Redis operation, or skips it while Redis is not configured or recently failed.
+     *
+     * @return the operation's result, or null if it was skipped or failed
+     */
+    private <T> T shared(Supplier<T> operation) {
+        if (redis == null || ticker.read() < redisRetryAt) {
+            return null;
+        }
+        try {
+            return operation.get();
+        } catch (RuntimeException e) {
+            redisFailures.increment();
+            redisRetryAt = ticker.read() + retryAfterNanos;
+            log.warn("Redis cache tier unavailable, using the in-process tier only for {}s: {}",
+                    Duration.ofNanos(retryAfterNanos).toSeconds(), e.getMessage());
+            return null;
+        }
+    }
+
+    private record Entry(Object value, long loadedAt) {}
+
+    private static final class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
+
+        @Override
+        public void write(JsonWriter out, LocalDateTime value) throws IOException {
+            out.value(value.toString());
+        }
+
+        @Override
+        public LocalDateTime read(JsonReader in) throws IOException {
+            return LocalDateTime.parse(in.nextString());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.dto.GameSummary;
+import com.arcadex.api.game.entity.Game;
+import com.arcadex.api.game.repository.GameRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads the game catalog one page at a time, so the cost of a page load does not grow with the
+ * number of games. Pages list {@link GameSummary} projections; only {@link #find(long)} reads a
+ * whole game. Pages and single games are read through {@link GameCache}.
+ */
+@Service
+public class GameCatalogService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String GAME_PREFIX = "game:";
+
+    private final GameRepository gameRepository;
+    private final GameCache gameCache;
+    private final int defaultPageSize;
+
+    public GameCatalogService(GameRepository gameRepository, GameCache gameCache,
+                              @Value("${game.catalog.page-size:48}") int defaultPageSize) {
+        this.gameRepository = gameRepository;
+        this.gameCache = gameCache;
+        this.defaultPageSize = Math.min(defaultPageSize, MAX_PAGE_SIZE);
+    }
+
+    public enum Sort {
+        NEWEST, OLDEST;
+
+        /**
+         * @throws IllegalArgumentException for anything but {@code newest} or {@code oldest}
+         */
+        public static Sort parse(String value) {
+            return value == null || value.isBlank() ? NEWEST : valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * @param nextCursor where the following page starts, or null if this is the last page
+     */
+    public record Page(List<GameSummary> games, CatalogCursor nextCursor) {}
+
+    /**
+     * @param category only games in this category, or null for all
+     * @param cursor   the {@link Page#nextCursor()} of the previous page, or null for the first page
+     * @param size     games per page, or null for the default; capped at {@link #MAX_PAGE_SIZE}
+     * @param fields   the columns to read, from {@link GameSummary.Field#parse}
+     */
+    public Page page(String category, Sort sort, CatalogCursor cursor, Integer size, Set<GameSummary.Field> fields) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, MAX_PAGE_SIZE);
+        String filter = category != null && !category.isBlank() ? category : null;
+        String key = GameCache.CATALOG_PREFIX + sort + ":" + pageSize + ":" + GameSummary.Field.format(fields) + ":"
+                + (cursor != null ? cursor.encode() : "") + ":" + (filter != null ? filter : "");
+        return gameCache.get(key, Page.class, () -> loadPage(filter, sort, cursor, pageSize, fields));
+    }
+
+    public Optional<Game> find(long id) {
+        return Optional.ofNullable(gameCache.get(GAME_PREFIX + id, Game.class,
+                () -> gameRepository.findById(id).orElse(null)));
+    }
+
+    /**
+     * Makes a newly saved game visible on every replica: all catalog pages are dropped, as is any
+     * remembered miss for its id.
+     */
+    public void onGameSaved(Game game) {
+        gameCache.invalidateCatalog();
+        gameCache.invalidate(GAME_PREFIX + game.getId());
+    }
+
+    private Page loadPage(String category, Sort sort, CatalogCursor cursor, int pageSize,
+                          Set<GameSummary.Field> fields) {
+        boolean newestFirst = sort == Sort.NEWEST;
+        CatalogCursor from = cursor != null ? cursor
+                : newestFirst ? CatalogCursor.NEWEST_FIRST : CatalogCursor.OLDEST_FIRST;
+        // one extra row tells whether another page follows
+        List<GameSummary> games = gameRepository.findSummaries(fields, category, newestFirst,
+                from.createdAt(), from.id(), pageSize + 1);
+
+        if (games.size() <= pageSize) {
+            return new Page(List.copyOf(games), null);
+        }
+        List<GameSummary> page = List.copyOf(games.subList(0, pageSize));
+        return new Page(page, CatalogCursor.after(page.get(pageSize - 1)));
+    }
+}
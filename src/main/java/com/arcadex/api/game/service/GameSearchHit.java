@@ -0,0 +1,12 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.entity.Game;
+
+/**
+ * One game matching a search. The highlights are HTML: the game's own text, escaped, with matched
+ * words wrapped in {@code <mark>}.
+ *
+ * @param rank                 relevance; higher is better, comparable only within one search
+ * @param descriptionHighlight the part of the description around the best match
+ */
+public record GameSearchHit(Game game, double rank, String titleHighlight, String descriptionHighlight) {}
@@ -0,0 +1,224 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.entity.Game;
+import com.arcadex.api.game.repository.GameRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Ranked full-text search over game titles, categories and descriptions.
+ * <p>
+ * On Postgres, {@code games.search_vector} is a generated tsvector column, so the database keeps it
+ * current on every write, and a GIN index on it answers the match. Only the requested page is
+ * highlighted, since {@code ts_headline} re-parses the text it marks. Other databases use an
+ * {@link InMemoryGameSearchIndex} of the whole catalog instead.
+ * <p>
+ * Results are read through {@link GameCache} under the catalog prefix, so a new game drops them
+ * along with the catalog pages.
+ */
+@Service
+public class GameSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(GameSearchService.class);
+
+    public static final int MAX_QUERY_LENGTH = 200;
+    // ranked results past this depth are not served; nobody pages that far into a search
+    public static final int MAX_RESULTS = 1000;
+    public static final int DEFAULT_SUGGESTIONS = 8;
+
+    private static final Pattern TEXT_SEARCH_CONFIG = Pattern.compile("[a-z_]+");
+    private static final String CACHE_PREFIX = GameCache.CATALOG_PREFIX + "search:";
+    private static final String HEADLINE_MARKS = "StartSel=" + InMemoryGameSearchIndex.MARK_START
+            + ", StopSel=" + InMemoryGameSearchIndex.MARK_END;
+
+    private static final String SEARCH_SQL = """
+            select g.id, g.title, g.description, g.thumbnail_url, g.game_url, g.category, g.created_at, m.rank,
+                   ts_headline(cast(:config as regconfig), g.title, m.query, :titleOptions) as title_highlight,
+                   ts_headline(cast(:config as regconfig), g.description, m.query, :descriptionOptions)
+                       as description_highlight
+            from (select g.id, ts_rank_cd(g.search_vector, q.query) as rank, q.query
+                  from games g, websearch_to_tsquery(cast(:config as regconfig), :query) as q(query)
+                  where g.search_vector @@ q.query
+                  order by rank desc, g.id desc
+                  limit :limit offset :offset) m
+            join games g on g.id = m.id
+            order by m.rank desc, g.id desc""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final GameRepository gameRepository;
+    private final GameCache gameCache;
+    private final GameSuggestionIndex suggestionIndex;
+    private final String textSearchConfig;
+    private final int defaultPageSize;
+
+    private volatile boolean fullText;
+    // null until the first fallback search, and again after the catalog changes
+    private volatile InMemoryGameSearchIndex fallbackIndex;
+
+    public GameSearchService(NamedParameterJdbcTemplate jdbcTemplate, GameRepository gameRepository,
+                             GameCache gameCache, GameSuggestionIndex suggestionIndex,
+                             @Value("${game.search.text-search-config:simple}") String textSearchConfig,
+                             @Value("${game.search.page-size:20}") int defaultPageSize) {
+        if (!TEXT_SEARCH_CONFIG.matcher(textSearchConfig).matches()) {
+            throw new IllegalArgumentException("Invalid text search config: " + textSearchConfig);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.gameRepository = gameRepository;
+        this.gameCache = gameCache;
+        this.suggestionIndex = suggestionIndex;
+        this.textSearchConfig = textSearchConfig;
+        this.defaultPageSize = Math.min(defaultPageSize, GameCatalogService.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * @param hasMore whether the following page has results
+     */
+    public record Page(List<GameSearchHit> hits, boolean hasMore) {}
+
+    /**
+     * Adds the search column and its index on Postgres if they are missing. Until this has run, and
+     * on other databases, searches use the in-memory index.
+     */
+    public void prepareIndex() {
+        String database = jdbcTemplate.getJdbcTemplate().execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(database)) {
+            log.info("{} has no full-text search; game search uses an in-memory index", database);
+            return;
+        }
+
+        try {
+            // the expression is fixed when the column is added; changing the config means dropping the column
+            jdbcTemplate.getJdbcTemplate().execute("""
+                    alter table games add column if not exists search_vector tsvector
+                    generated always as (
+                        setweight(to_tsvector('%1$s'::regconfig, coalesce(title, '')), 'A')
+                        || setweight(to_tsvector('%1$s'::regconfig, coalesce(category, '')), 'B')
+                        || setweight(to_tsvector('%1$s'::regconfig, coalesce(description, '')), 'C')
+                    ) stored""".formatted(textSearchConfig));
+            jdbcTemplate.getJdbcTemplate().execute(
+                    "create index concurrently if not exists idx_games_search_vector on games using gin (search_vector)");
+            fullText = true;
+            log.info("Game search uses the Postgres full-text index: config={}", textSearchConfig);
+        } catch (DataAccessException e) {
+            log.warn("Could not prepare the full-text search index; game search uses an in-memory index", e);
+        }
+    }
+
+    /**
+     * @param page zero-based page number
+     * @param size hits per page, or null for the default; capped like catalog pages
+     * @throws IllegalArgumentException if the query is blank or longer than {@link #MAX_QUERY_LENGTH},
+     *                                  or the page is negative
+     */
+    public Page search(String query, int page, Integer size) {
+        String normalized = query == null ? "" : query.strip().replaceAll("\\s+", " ");
+        if (normalized.isEmpty() || normalized.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Query must be 1 to " + MAX_QUERY_LENGTH + " characters");
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, GameCatalogService.MAX_PAGE_SIZE);
+        long offset = (long) page * pageSize;
+        if (offset >= MAX_RESULTS) {
+            return new Page(List.of(), false);
+        }
+
+        String key = CACHE_PREFIX + page + ":" + pageSize + ":" + normalized.toLowerCase(Locale.ROOT);
+        return gameCache.get(key, Page.class, () -> loadPage(normalized, (int) offset, pageSize));
+    }
+
+    /**
+     * Completes a title or category as it is typed, from memory; see {@link GameSuggestionIndex}.
+     *
+     * @param limit suggestions to return, or null for {@value #DEFAULT_SUGGESTIONS}
+     * @throws IllegalArgumentException if the prefix is longer than {@link #MAX_QUERY_LENGTH}
+     */
+    public List<GameSuggestionIndex.GameSuggestion> suggest(String prefix, Integer limit) {
+        if (prefix != null && prefix.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Query must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        return suggestionIndex.suggest(prefix, limit == null ? DEFAULT_SUGGESTIONS : limit);
+    }
+
+    /**
+     * Adds the game to the suggestion index and drops the in-memory search index; the Postgres
+     * column follows writes on its own.
+     */
+    public void onGameSaved(Game game) {
+        suggestionIndex.add(game);
+        fallbackIndex = null;
+    }
+
+    private Page loadPage(String query, int offset, int pageSize) {
+        // one extra hit tells whether another page follows
+        int limit = Math.min(pageSize + 1, MAX_RESULTS - offset);
+        List<GameSearchHit> hits = fullText ? searchFullText(query, offset, limit) : searchInMemory(query, offset, limit);
+
+        boolean hasMore = hits.size() > pageSize;
+        List<GameSearchHit> page = new ArrayList<>(hasMore ? hits.subList(0, pageSize) : hits);
+        page.replaceAll(hit -> new GameSearchHit(hit.game(), hit.rank(),
+                toHtml(hit.titleHighlight()), toHtml(hit.descriptionHighlight())));
+        return new Page(List.copyOf(page), hasMore);
+    }
+
+    private List<GameSearchHit> searchFullText(String query, int offset, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("config", textSearchConfig)
+                .addValue("query", query)
+                .addValue("titleOptions", HEADLINE_MARKS + ", HighlightAll=true")
+                .addValue("descriptionOptions", HEADLINE_MARKS + ", MaxWords=35, MinWords=15")
+                .addValue("limit", limit)
+                .addValue("offset", offset);
+        return jdbcTemplate.query(SEARCH_SQL, parameters, (row, rowNum) -> hit(row));
+    }
+
+    private List<GameSearchHit> searchInMemory(String query, int offset, int limit) {
+        InMemoryGameSearchIndex index = fallbackIndex;
+        if (index == null) {
+            index = InMemoryGameSearchIndex.build(gameRepository.findAll());
+            fallbackIndex = index;
+            log.debug("Indexed {} games for in-memory search", index.size());
+        }
+        return index.search(query, offset, limit);
+    }
+
+    private static GameSearchHit hit(ResultSet row) throws SQLException {
+        Game game = new Game(row.getString("title"), row.getString("description"),
+                row.getString("thumbnail_url"), row.getString("game_url"), row.getString("category"));
+        game.setId(row.getLong("id"));
+        Timestamp createdAt = row.getTimestamp("created_at");
+        game.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        return new GameSearchHit(game, row.getDouble("rank"),
+                row.getString("title_highlight"), row.getString("description_highlight"));
+    }
+
+    /**
+     * Escapes text marked by {@code ts_headline} or the in-memory index and turns the marks into
+     * {@code <mark>} tags, so game text cannot inject markup.
+     */
+    static String toHtml(String marked) {
+        if (marked == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(marked)
+                .replace(String.valueOf(InMemoryGameSearchIndex.MARK_START), "<mark>")
+                .replace(String.valueOf(InMemoryGameSearchIndex.MARK_END), "</mark>");
+    }
+}
@@ -0,0 +1,715 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.dto.GameSummary;
+import com.arcadex.api.game.entity.Game;
+import com.arcadex.api.game.repository.GameRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index over game titles and categories for search-as-you-type, so a keystroke
+ * costs no database round trip.
+ * <p>
+ * Every word start in a game's normalized title and category is one {@code long} in a sorted
+ * array, packing the game's ordinal and the character offset, so the games matching a prefix are
+ * a contiguous run found by binary search. Matches are ranked by how often the game was launched
+ * from this replica, newest first on ties. A short prefix can match much of the catalog, so the
+ * array is split into blocks under a tree holding the best-ranked entry of each subtree; a lookup
+ * opens blocks best first and stops once no block left can beat the suggestions it has.
+ * <p>
+ * The index is loaded when the application starts. Games saved here are added right away; games
+ * saved on other replicas are picked up by a catch-up read that a lookup starts when the last one
+ * is older than {@code game.suggest.sync-seconds}. A catch-up read starts one sync interval before
+ * the newest game already read, to cover a little clock skew between replicas, and every
+ * {@code game.suggest.reconcile-minutes} it rereads the whole catalog instead, for games whose
+ * transaction committed long after their creation time.
+ * <p>
+ * Additions go into a small sorted delta segment, which lookups scan next to the main array, so a
+ * game saved here copies only the delta. The delta is merged into a new main array once it grows
+ * past {@code MAX_DELTA_ENTRIES} and at every catch-up read. Lookups never lock.
+ */
+@Component
+public class GameSuggestionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(GameSuggestionIndex.class);
+
+    public static final int MAX_SUGGESTIONS = 20;
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final Set<GameSummary.Field> LOADED_FIELDS =
+            Set.of(GameSummary.Field.TITLE, GameSummary.Field.CATEGORY, GameSummary.Field.GAME_URL);
+    private static final char FIELD_SEPARATOR = '\u0001';
+    private static final int OFFSET_BITS = 16;
+    private static final int MAX_TEXT_LENGTH = (1 << OFFSET_BITS) - 1;
+    private static final int BLOCK_SIZE = 64;
+    private static final int MAX_DELTA_ENTRIES = 4096;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String FILES_PREFIX = "/api/files/";
+    // object header and fields of a Doc, plus its entry in byId
+    private static final int DOC_OVERHEAD_BYTES = 48 + 48;
+
+    private final GameRepository gameRepository;
+    private final long syncIntervalNanos;
+    private final long reconcileIntervalNanos;
+    private final Timer lookups;
+
+    private final Object writeLock = new Object();
+    // guards launch counts and rank tree updates; taken inside writeLock, never around it
+    private final Object rankLock = new Object();
+    // guarded by rankLock; games launched while a new snapshot is built, to promote in it once published
+    private List<Doc> launchedDuringBuild;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    // guarded by writeLock; the same games as the snapshot, to skip ones already indexed
+    private final Map<Long, Doc> byId = new HashMap<>();
+    // games hosted here, by the path of their entry document under /api/files/
+    private final Map<String, Doc> byLaunchPath = new ConcurrentHashMap<>();
+    // guarded by writeLock; the newest game read from the database
+    private CatalogCursor synced = CatalogCursor.OLDEST_FIRST;
+    private volatile long lastSyncNanos = System.nanoTime();
+    private volatile long lastReconcileNanos = System.nanoTime();
+    private final AtomicBoolean syncing = new AtomicBoolean();
+
+    public GameSuggestionIndex(GameRepository gameRepository,
+                               @Value("${game.suggest.sync-seconds:30}") long syncSeconds,
+                               @Value("${game.suggest.reconcile-minutes:15}") long reconcileMinutes,
+                               MeterRegistry meterRegistry) {
+        this.gameRepository = gameRepository;
+        this.syncIntervalNanos = Duration.ofSeconds(syncSeconds).toNanos();
+        this.reconcileIntervalNanos = Duration.ofMinutes(reconcileMinutes).toNanos();
+        this.lookups = Timer.builder("game.suggest.lookup")
+                .description("Time to rank the suggestions for one prefix")
+                .register(meterRegistry);
+
+        Gauge.builder("game.suggest.index.games", this, index -> index.snapshot.size)
+                .register(meterRegistry);
+        Gauge.builder("game.suggest.index.entries", this, index -> index.snapshot.entryCount())
+                .description("Indexed word starts")
+                .register(meterRegistry);
+        Gauge.builder("game.suggest.index.bytes", this, index -> index.snapshot.estimatedBytes)
+                .description("Estimated heap held by the suggestion index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public record GameSuggestion(long id, String title, String category) {}
+
+    /**
+     * Reads the whole catalog into the index, oldest game first, one keyset page at a time.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        sync(true);
+        Snapshot loaded = snapshot;
+        log.info("Suggestion index loaded: games={}, entries={}, estimatedBytes={}, took={}ms",
+                loaded.size, loaded.entryCount(), loaded.estimatedBytes,
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    /**
+     * Adds a game saved on this replica. Games already indexed are ignored.
+     */
+    public void add(Game game) {
+        synchronized (writeLock) {
+            publish(register(List.of(GameSummary.of(game))), false);
+        }
+    }
+
+    /**
+     * Counts a launch if {@code path}, relative to {@code /api/files/}, is a game's entry document.
+     */
+    public void recordLaunch(String path) {
+        Doc doc = byLaunchPath.get(path);
+        if (doc == null) {
+            return;
+        }
+        synchronized (rankLock) {
+            doc.launches++;
+            Snapshot current = snapshot;
+            if (doc.ordinal >= 0 && doc.ordinal < current.size) {
+                current.promote(doc);
+            }
+            if (launchedDuringBuild != null) {
+                launchedDuringBuild.add(doc);
+            }
+        }
+    }
+
+    /**
+     * @return up to {@code limit} games with a title or category word starting with {@code query}
+     * (or a run of words, for queries with spaces), most launched first. Case and accents are ignored.
+     */
+    public List<GameSuggestion> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        syncIfDue();
+        int count = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        Snapshot current = snapshot;
+        return lookups.record(() -> current.lookup(prefix, count));
+    }
+
+    private void syncIfDue() {
+        if (System.nanoTime() - lastSyncNanos < syncIntervalNanos || !syncing.compareAndSet(false, true)) {
+            return;
+        }
+        boolean reconcile = System.nanoTime() - lastReconcileNanos >= reconcileIntervalNanos;
+        Thread.ofVirtual().name("suggestion-sync").start(() -> {
+            try {
+                sync(reconcile);
+            } catch (RuntimeException e) {
+                log.warn("Failed to read new games into the suggestion index", e);
+            } finally {
+                syncing.set(false);
+            }
+        });
+    }
+
+    /**
+     * Reads games created since shortly before the newest one read so far, or the whole catalog
+     * when {@code full}. Games already indexed are skipped. Each batch is reduced to what the index
+     * keeps as it is read, and the new entries are sorted and merged once at the end, together with
+     * the delta.
+     */
+    private void sync(boolean full) {
+        synchronized (writeLock) {
+            boolean initial = synced == CatalogCursor.OLDEST_FIRST;
+            CatalogCursor cursor = full || initial
+                    ? CatalogCursor.OLDEST_FIRST
+                    : new CatalogCursor(synced.createdAt().minusNanos(syncIntervalNanos), Long.MIN_VALUE);
+            List<Doc> added = new ArrayList<>();
+            List<GameSummary> batch;
+            do {
+                batch = gameRepository.findSummaries(LOADED_FIELDS, null, false, cursor.createdAt(), cursor.id(),
+                        LOAD_BATCH_SIZE);
+                if (!batch.isEmpty()) {
+                    added.addAll(register(batch));
+                    cursor = CatalogCursor.after(batch.get(batch.size() - 1));
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+            if (cursor != CatalogCursor.OLDEST_FIRST && !cursor.createdAt().isBefore(synced.createdAt())) {
+                synced = cursor;
+            }
+            if (full && !initial && !added.isEmpty()) {
+                log.info("Suggestion index reconciled: {} games missed by catch-up reads", added.size());
+            }
+            publish(added, true);
+            lastSyncNanos = System.nanoTime();
+            if (full) {
+                lastReconcileNanos = lastSyncNanos;
+            }
+        }
+    }
+
+    // caller holds writeLock
+    private List<Doc> register(List<GameSummary> games) {
+        List<Doc> added = new ArrayList<>();
+        for (GameSummary game : games) {
+            if (game.id() != null && !byId.containsKey(game.id())) {
+                Doc doc = new Doc(game.id(), game.title(), game.category());
+                byId.put(doc.id, doc);
+                added.add(doc);
+                String gameUrl = game.gameUrl();
+                if (gameUrl != null && gameUrl.startsWith(FILES_PREFIX)) {
+                    byLaunchPath.put(gameUrl.substring(FILES_PREFIX.length()), doc);
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * @param compact whether to merge the delta into the main array even if it is below its limit
+     */
+    // caller holds writeLock
+    private void publish(List<Doc> added, boolean compact) {
+        if (added.isEmpty() && (!compact || snapshot.delta.length == 0)) {
+            return;
+        }
+        synchronized (rankLock) {
+            launchedDuringBuild = new ArrayList<>();
+        }
+        // built without rankLock, so launches are not held up by a large catalog
+        Snapshot next = snapshot.with(added, compact);
+        synchronized (rankLock) {
+            snapshot = next;
+            for (Doc doc : launchedDuringBuild) {
+                next.promote(doc);
+            }
+            launchedDuringBuild = null;
+        }
+    }
+
+    /**
+     * Lowercases, strips accents and turns every run of other characters into one space.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+        return SEPARATORS.matcher(decomposed.toLowerCase(Locale.ROOT)).replaceAll(" ").strip();
+    }
+
+    private static final class Doc {
+
+        final long id;
+        final String title;
+        final String category;
+        // normalized title and category, the text the index entries point into
+        final String text;
+        volatile int ordinal = -1;
+        // written under rankLock
+        volatile long launches;
+
+        Doc(long id, String title, String category) {
+            this.id = id;
+            this.title = title;
+            this.category = category;
+            String indexed = normalize(title) + FIELD_SEPARATOR + normalize(category);
+            this.text = indexed.length() > MAX_TEXT_LENGTH ? indexed.substring(0, MAX_TEXT_LENGTH) : indexed;
+        }
+
+        boolean ranksBefore(Doc other) {
+            long otherLaunches = other.launches;
+            return launches != otherLaunches ? launches > otherLaunches : ordinal > other.ordinal;
+        }
+
+        long estimatedBytes() {
+            return DOC_OVERHEAD_BYTES + stringBytes(title) + stringBytes(category) + stringBytes(text);
+        }
+
+        private static long stringBytes(String s) {
+            if (s == null) {
+                return 0;
+            }
+            boolean latin1 = s.chars().allMatch(c -> c < 256);
+            return 40 + (long) s.length() * (latin1 ? 1 : 2);
+        }
+    }
+
+    /**
+     * A view of the index. Only the rank tree changes after publication, under rankLock. {@code docs}
+     * may have spare capacity past {@code size}; the writer appends into it before publishing a
+     * snapshot that covers the new slots. Snapshots that only grew the delta share the main array
+     * and its rank tree with the one they were built from.
+     */
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new Doc[0], 0, new long[0], 0);
+
+        final Doc[] docs;
+        final int size;
+        // games with a lower ordinal are in the main array, the others in the delta
+        final int mainSize;
+        // (ordinal << OFFSET_BITS | offset), sorted by the text starting at offset
+        final long[] entries;
+        // entries of the games added since the main array was built, sorted the same way; small
+        // enough to be scanned without a rank tree
+        final long[] delta;
+        // heap-ordered tree over blocks of BLOCK_SIZE entries; each node holds the position of the
+        // best-ranked entry below it, or -1. Leaves start at index leaves.
+        final int[] rankTree;
+        final int leaves;
+        // the games themselves, without the arrays
+        final long docBytes;
+        final long estimatedBytes;
+
+        Snapshot(Doc[] docs, int size, long[] entries, long docBytes) {
+            this.docs = docs;
+            this.size = size;
+            this.mainSize = size;
+            this.entries = entries;
+            this.delta = new long[0];
+            int blocks = (entries.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            int leafCount = 1;
+            while (leafCount < blocks) {
+                leafCount <<= 1;
+            }
+            this.leaves = leafCount;
+            this.rankTree = new int[2 * leaves];
+            Arrays.fill(rankTree, -1);
+            for (int position = 0; position < entries.length; position++) {
+                int leaf = leaves + position / BLOCK_SIZE;
+                if (rankTree[leaf] < 0 || ranksBefore(position, rankTree[leaf])) {
+                    rankTree[leaf] = position;
+                }
+            }
+            for (int node = leaves - 1; node > 0; node--) {
+                rankTree[node] = better(rankTree[2 * node], rankTree[2 * node + 1]);
+            }
+            this.docBytes = docBytes;
+            this.estimatedBytes = docBytes + (long) docs.length * 8 + (long) entries.length * 8
+                    + (long) rankTree.length * 4;
+        }
+
+        private Snapshot(Snapshot main, Doc[] docs, int size, long[] delta, long docBytes) {
+            this.docs = docs;
+            this.size = size;
+            this.mainSize = main.mainSize;
+            this.entries = main.entries;
+            this.delta = delta;
+            this.rankTree = main.rankTree;
+            this.leaves = main.leaves;
+            this.docBytes = docBytes;
+            this.estimatedBytes = docBytes + (long) docs.length * 8 + (long) entries.length * 8
+                    + (long) delta.length * 8 + (long) rankTree.length * 4;
+        }
+
+        int entryCount() {
+            return entries.length + delta.length;
+        }
+
+        /**
+         * @param compact whether to merge the delta into the main array even if it is below its limit
+         */
+        Snapshot with(List<Doc> added, boolean compact) {
+            Doc[] grown = docs;
+            if (size + added.size() > docs.length) {
+                grown = Arrays.copyOf(docs, Math.max(size + added.size(), docs.length * 2));
+            }
+            long addedBytes = docBytes;
+            int wordStarts = 0;
+            for (Doc doc : added) {
+                addedBytes += doc.estimatedBytes();
+                for (int offset = 0; offset < doc.text.length(); offset++) {
+                    wordStarts += isWordStart(doc.text, offset) ? 1 : 0;
+                }
+            }
+
+            long[] fresh = new long[wordStarts];
+            int next = 0;
+            for (int i = 0; i < added.size(); i++) {
+                Doc doc = added.get(i);
+                doc.ordinal = size + i;
+                grown[doc.ordinal] = doc;
+                for (int offset = 0; offset < doc.text.length(); offset++) {
+                    if (isWordStart(doc.text, offset)) {
+                        fresh[next++] = (long) doc.ordinal << OFFSET_BITS | offset;
+                    }
+                }
+            }
+
+            Doc[] lookup = grown;
+            sortEntries(fresh, (a, b) -> compareEntries(lookup, a, b));
+            long[] grownDelta = merge(lookup, delta, fresh);
+            if (compact || grownDelta.length > MAX_DELTA_ENTRIES) {
+                return new Snapshot(grown, size + added.size(), merge(lookup, entries, grownDelta), addedBytes);
+            }
+            return new Snapshot(this, grown, size + added.size(), grownDelta, addedBytes);
+        }
+
+        List<GameSuggestion> lookup(String prefix, int limit) {
+            Top top = new Top(limit);
+            int deltaFrom = lowerBound(delta, prefix);
+            scan(top, delta, deltaFrom, endOfPrefix(delta, prefix, deltaFrom));
+
+            int from = lowerBound(entries, prefix);
+            int to = endOfPrefix(entries, prefix, from);
+
+            int firstFullBlock = (from + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            int endFullBlocks = to / BLOCK_SIZE;
+            if (firstFullBlock >= endFullBlocks) {
+                scan(top, entries, from, to);
+                return top.suggestions();
+            }
+            scan(top, entries, from, firstFullBlock * BLOCK_SIZE);
+            scan(top, entries, endFullBlocks * BLOCK_SIZE, to);
+
+            // subtrees covering the whole blocks in range, best first; ranks are copied in, as launches
+            // may be counted meanwhile
+            PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+            for (int l = firstFullBlock + leaves, r = endFullBlocks + leaves; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) {
+                    offerCandidate(candidates, l++);
+                }
+                if ((r & 1) == 1) {
+                    offerCandidate(candidates, --r);
+                }
+            }
+            while (!candidates.isEmpty()) {
+                Candidate candidate = candidates.poll();
+                if (top.isFull() && !top.wouldTake(candidate.doc)) {
+                    break;
+                }
+                if (candidate.node >= leaves) {
+                    int block = candidate.node - leaves;
+                    scan(top, entries, block * BLOCK_SIZE, Math.min((block + 1) * BLOCK_SIZE, entries.length));
+                } else {
+                    offerCandidate(candidates, 2 * candidate.node);
+                    offerCandidate(candidates, 2 * candidate.node + 1);
+                }
+            }
+            return top.suggestions();
+        }
+
+        /**
+         * Raises the tree nodes above each of {@code doc}'s entries after its launch count grew.
+         * Counts only grow, so no other entry can overtake it. Games in the delta have no tree to
+         * update.
+         */
+        void promote(Doc doc) {
+            if (doc.ordinal >= mainSize) {
+                return;
+            }
+            for (int offset = 0; offset < doc.text.length(); offset++) {
+                if (!isWordStart(doc.text, offset)) {
+                    continue;
+                }
+                int position = find((long) doc.ordinal << OFFSET_BITS | offset);
+                for (int node = leaves + position / BLOCK_SIZE; node > 0; node >>= 1) {
+                    if (rankTree[node] < 0 || ranksBefore(position, rankTree[node])) {
+                        rankTree[node] = position;
+                    }
+                }
+            }
+        }
+
+        private void offerCandidate(PriorityQueue<Candidate> candidates, int node) {
+            int best = rankTree[node];
+            if (best >= 0) {
+                Doc doc = doc(best);
+                candidates.add(new Candidate(node, doc, doc.launches));
+            }
+        }
+
+        private void scan(Top top, long[] sorted, int from, int to) {
+            for (int position = from; position < to; position++) {
+                top.offer(docOf(sorted[position]));
+            }
+        }
+
+        private Doc doc(int position) {
+            return docOf(entries[position]);
+        }
+
+        private Doc docOf(long entry) {
+            return docs[(int) (entry >>> OFFSET_BITS)];
+        }
+
+        private boolean ranksBefore(int position, int otherPosition) {
+            return doc(position).ranksBefore(doc(otherPosition));
+        }
+
+        private int better(int position, int otherPosition) {
+            if (position < 0 || otherPosition < 0) {
+                return Math.max(position, otherPosition);
+            }
+            return ranksBefore(otherPosition, position) ? otherPosition : position;
+        }
+
+        /**
+         * @return the position of {@code entry}, which is in the array
+         */
+        private int find(long entry) {
+            int low = 0;
+            int high = entries.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareEntries(docs, entries[mid], entry) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return the position of the first entry in {@code sorted} whose text is not less than {@code prefix}
+         */
+        private int lowerBound(long[] sorted, String prefix) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareText(docOf(sorted[mid]).text, offset(sorted[mid]), prefix, 0) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return the position after the last entry of {@code sorted} from {@code from} whose text
+         * starts with {@code prefix}
+         */
+        private int endOfPrefix(long[] sorted, String prefix, int from) {
+            int low = from;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (docOf(sorted[mid]).text.startsWith(prefix, offset(sorted[mid]))) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static int offset(long entry) {
+            return (int) (entry & MAX_TEXT_LENGTH);
+        }
+
+        private static boolean isWordStart(String text, int offset) {
+            char c = text.charAt(offset);
+            if (c == ' ' || c == FIELD_SEPARATOR) {
+                return false;
+            }
+            return offset == 0 || text.charAt(offset - 1) == ' ' || text.charAt(offset - 1) == FIELD_SEPARATOR;
+        }
+
+        private static int compareEntries(Doc[] docs, long a, long b) {
+            int c = compareText(docs[(int) (a >>> OFFSET_BITS)].text, (int) (a & MAX_TEXT_LENGTH),
+                    docs[(int) (b >>> OFFSET_BITS)].text, (int) (b & MAX_TEXT_LENGTH));
+            return c != 0 ? c : Long.compare(a, b);
+        }
+
+        private static int compareText(String a, int fromA, String b, int fromB) {
+            int length = Math.min(a.length() - fromA, b.length() - fromB);
+            for (int i = 0; i < length; i++) {
+                int c = Character.compare(a.charAt(fromA + i), b.charAt(fromB + i));
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return Integer.compare(a.length() - fromA, b.length() - fromB);
+        }
+
+        /**
+         * Merges the few sorted entries in {@code right} into {@code left}, finding each one's place by
+         * binary search and copying the runs of {@code left} between them.
+         */
+        private static long[] merge(Doc[] docs, long[] left, long[] right) {
+            long[] merged = new long[left.length + right.length];
+            int copied = 0;
+            for (int r = 0; r < right.length; r++) {
+                int low = copied;
+                int high = left.length;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (compareEntries(docs, left[mid], right[r]) < 0) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                System.arraycopy(left, copied, merged, copied + r, low - copied);
+                merged[low + r] = right[r];
+                copied = low;
+            }
+            System.arraycopy(left, copied, merged, copied + right.length, left.length - copied);
+            return merged;
+        }
+
+        @FunctionalInterface
+        private interface EntryComparator {
+            int compare(long a, long b);
+        }
+
+        /**
+         * Merge sort over primitive entries, so loading a large catalog does not box every entry.
+         */
+        private static void sortEntries(long[] entries, EntryComparator comparator) {
+            long[] buffer = new long[entries.length];
+            for (int width = 1; width < entries.length; width *= 2) {
+                for (int from = 0; from < entries.length - width; from += 2 * width) {
+                    int middle = from + width;
+                    int to = Math.min(from + 2 * width, entries.length);
+                    int l = from;
+                    int r = middle;
+                    for (int i = from; i < to; i++) {
+                        buffer[i] = r == to || (l < middle && comparator.compare(entries[l], entries[r]) <= 0)
+                                ? entries[l++] : entries[r++];
+                    }
+                    System.arraycopy(buffer, from, entries, from, to - from);
+                }
+            }
+        }
+    }
+
+    private record Candidate(int node, Doc doc, long launches) implements Comparable<Candidate> {
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (launches != other.launches) {
+                return Long.compare(other.launches, launches);
+            }
+            return Integer.compare(other.doc.ordinal, doc.ordinal);
+        }
+    }
+
+    /**
+     * The best {@code limit} distinct games seen so far, best first.
+     */
+    private static final class Top {
+
+        private final Doc[] docs;
+        private int found;
+
+        Top(int limit) {
+            this.docs = new Doc[limit];
+        }
+
+        boolean isFull() {
+            return found == docs.length;
+        }
+
+        boolean wouldTake(Doc doc) {
+            return !isFull() || doc.ranksBefore(docs[found - 1]);
+        }
+
+        void offer(Doc doc) {
+            if (!wouldTake(doc)) {
+                return;
+            }
+            for (int i = 0; i < found; i++) {
+                if (docs[i] == doc) {
+                    return;
+                }
+            }
+            int position = found;
+            while (position > 0 && doc.ranksBefore(docs[position - 1])) {
+                position--;
+            }
+            int moved = Math.min(found, docs.length - 1) - position;
+            System.arraycopy(docs, position, docs, position + 1, moved);
+            docs[position] = doc;
+            found = Math.min(found + 1, docs.length);
+        }
+
+        List<GameSuggestion> suggestions() {
+            List<GameSuggestion> suggestions = new ArrayList<>(found);
+            for (int i = 0; i < found; i++) {
+                suggestions.add(new GameSuggestion(docs[i].id, docs[i].title, docs[i].category));
+            }
+            return List.copyOf(suggestions);
+        }
+    }
+}
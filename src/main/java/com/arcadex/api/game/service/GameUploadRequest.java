@@ -0,0 +1,48 @@
+package com.arcadex.api.game.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A game upload whose files have been spooled to local temp files, so it can outlive the HTTP
+ * request that carried it. Whoever creates one must {@link #discard()} it when done.
+ * {@code onDiscard}, if not null, runs once the files are deleted, to give back whatever was set
+ * aside for them.
+ */
+public record GameUploadRequest(String title, String description, String category,
+                                Path archive, Path thumbnail, String thumbnailFilename,
+                                String thumbnailContentType, Runnable onDiscard) {
+
+    public static GameUploadRequest spool(String title, String description, String category,
+                                          MultipartFile gameFile, MultipartFile thumbnail) throws IOException {
+        Path archive = Files.createTempFile("arcadex-upload-", ".zip");
+        Path thumbnailFile = null;
+        try {
+            gameFile.transferTo(archive);
+            thumbnailFile = Files.createTempFile("arcadex-thumbnail-", ".tmp");
+            thumbnail.transferTo(thumbnailFile);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(archive);
+            if (thumbnailFile != null) {
+                Files.deleteIfExists(thumbnailFile);
+            }
+            throw e;
+        }
+        return new GameUploadRequest(title, description, category, archive, thumbnailFile,
+                thumbnail.getOriginalFilename(), thumbnail.getContentType(), null);
+    }
+
+    public void discard() throws IOException {
+        try {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(thumbnail);
+        } finally {
+            if (onDiscard != null) {
+                onDiscard.run();
+            }
+        }
+    }
+}
@@ -1,181 +1,640 @@
 package com.arcadex.api.game.service;
 
+import com.arcadex.api.game.entity.AssetBlob;
 import com.arcadex.api.game.entity.Game;
+import com.arcadex.api.game.entity.GameAsset;
+import com.arcadex.api.game.repository.GameAssetRepository;
 import com.arcadex.api.game.repository.GameRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 @Service
 public class GameUploadService {
 
     private static final Logger log = LoggerFactory.getLogger(GameUploadService.class);
 
-    private static final int MAX_ENTRY_COUNT = 500;
-    private static final long MAX_TOTAL_UNCOMPRESSED_SIZE = 200L * 1024 * 1024;
-    private static final long MAX_SINGLE_ENTRY_SIZE = 50L * 1024 * 1024;
+    /** Suffix of the precompressed variant stored next to a text asset. */
+    public static final String GZIP_SUFFIX = ".gz";
+
+    private static final int MIN_PRECOMPRESS_SIZE = 1024;
 
     private final ObjectStorageService objectStorageService;
     private final GameRepository gameRepository;
-
-    public GameUploadService(ObjectStorageService objectStorageService, GameRepository gameRepository) {
+    private final GameAssetRepository gameAssetRepository;
+    private final AssetBlobService assetBlobService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThumbnailVariantService thumbnailVariantService;
+    private final GameCatalogService gameCatalogService;
+    private final GameSearchService gameSearchService;
+    private final int uploadConcurrency;
+    private final int spoolMemoryThreshold;
+    private final boolean bundleEnabled;
+
+    private final SingleFlight<String, Long> blobUploads;
+    private final Counter blobsStored;
+    private final Counter blobsReused;
+    private final Counter deduplicatedBytes;
+
+    public GameUploadService(ObjectStorageService objectStorageService, GameRepository gameRepository,
+                             GameAssetRepository gameAssetRepository, AssetBlobService assetBlobService,
+                             TransactionTemplate transactionTemplate,
+                             ThumbnailVariantService thumbnailVariantService,
+                             GameCatalogService gameCatalogService,
+                             GameSearchService gameSearchService,
+                             @Value("${game.upload.concurrency:8}") int uploadConcurrency,
+                             @Value("${game.upload.spool-memory-threshold:1048576}") int spoolMemoryThreshold,
+                             @Value("${game.upload.bundle.enabled:false}") boolean bundleEnabled,
+                             MeterRegistry meterRegistry) {
         this.objectStorageService = objectStorageService;
         this.gameRepository = gameRepository;
+        this.gameAssetRepository = gameAssetRepository;
+        this.assetBlobService = assetBlobService;
+        this.transactionTemplate = transactionTemplate;
+        this.thumbnailVariantService = thumbnailVariantService;
+        this.gameCatalogService = gameCatalogService;
+        this.gameSearchService = gameSearchService;
+        this.uploadConcurrency = uploadConcurrency;
+        this.spoolMemoryThreshold = spoolMemoryThreshold;
+        this.bundleEnabled = bundleEnabled;
+
+        Gauge.builder("game.upload.buffered-bytes", SpoolOutputStream::getInMemoryBytes)
+                .description("Heap held by upload spools across all in-flight uploads")
+                .register(meterRegistry);
+        this.blobUploads = new SingleFlight<>("blob-upload", meterRegistry);
+        this.blobsStored = Counter.builder("game.upload.blobs").tag("result", "stored").register(meterRegistry);
+        this.blobsReused = Counter.builder("game.upload.blobs").tag("result", "reused").register(meterRegistry);
+        this.deduplicatedBytes = Counter.builder("game.upload.deduplicated-bytes")
+                .description("Bytes of game files not uploaded because identical content was already stored")
+                .register(meterRegistry);
     }
 
-    public Game uploadGame(String title, String description, String category,
-                           MultipartFile gameFile, MultipartFile thumbnail)
+    /**
+     * Uploads a spooled game and saves it. If anything fails, objects that belong to this game
+     * alone (thumbnail, bundle) are deleted again, and so are the content-addressed blobs this
+     * upload stored unless another game has referenced them meanwhile.
+     */
+    public Game uploadGame(GameUploadRequest request, UploadProgress progress)
             throws IOException, InterruptedException {
-
         String gameId = UUID.randomUUID().toString();
+        List<GameAsset> assets = new ArrayList<>();
+        List<String> ownedObjects = new ArrayList<>();
+        // content hashes of the blobs this upload stored itself, rather than found or shared with another upload
+        Set<String> createdBlobs = ConcurrentHashMap.newKeySet();
+
+        try {
+            String thumbnailObject;
+            String gamePath;
+            progress.stage(UploadJob.Stage.SCANNING);
+            try (ZipFile zipFile = openArchive(request.archive())) {
+                // Reject bad archives from the central directory before anything reaches storage.
+                List<GameArchiveScanner.ScannedEntry> entries = GameArchiveScanner.scan(zipFile);
+                progress.scanned(entries.size(), entries.stream().mapToLong(entry -> entry.entry().getSize()).sum());
+
+                progress.stage(UploadJob.Stage.UPLOADING);
+                thumbnailObject = uploadThumbnail(gameId, request, assets, ownedObjects);
+                if (bundleEnabled) {
+                    bundleAndUploadGameFiles(gameId, zipFile, entries, assets, ownedObjects, progress);
+                } else {
+                    extractAndUploadGameFiles(gameId, zipFile, entries, assets, createdBlobs, progress);
+                }
+                gamePath = entryPointOf(gameId, entries);
+            }
 
-        String thumbnailPath = uploadThumbnail(gameId, thumbnail);
-
-        String gamePath = extractAndUploadGameFiles(gameId, gameFile);
-
-        Game game = new Game();
-        game.setTitle(title);
-        game.setDescription(description);
-        game.setCategory(category);
-        game.setThumbnailUrl(thumbnailPath);
-        game.setGameUrl(gamePath);
-
-        Game savedGame = gameRepository.save(game);
-        log.info("Game uploaded successfully: id={}, title={}", savedGame.getId(), title);
-
-        return savedGame;
+            Game game = new Game();
+            game.setTitle(request.title());
+            game.setDescription(request.description());
+            game.setCategory(request.category());
+            game.setThumbnailUrl("/api/files/" + thumbnailObject);
+            game.setGameUrl(gamePath);
+
+            progress.stage(UploadJob.Stage.SAVING);
+            Game savedGame = transactionTemplate.execute(status -> {
+                Game saved = gameRepository.save(game);
+                gameAssetRepository.saveAll(assets);
+                assetBlobService.addReferences(assets);
+                return saved;
+            });
+            log.info("Game uploaded successfully: id={}, title={}", savedGame.getId(), request.title());
+            gameCatalogService.onGameSaved(savedGame);
+            gameSearchService.onGameSaved(savedGame);
+
+            // Catalog-sized thumbnails are rendered after the response; the original is served until then.
+            thumbnailVariantService.generateAsync(gameId, thumbnailObject, request.thumbnail());
+
+            return savedGame;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            deleteQuietly(ownedObjects, createdBlobs);
+            throw e;
+        }
     }
 
-    private String uploadThumbnail(String gameId, MultipartFile thumbnail)
+    private String uploadThumbnail(String gameId, GameUploadRequest request, List<GameAsset> assets,
+                                   List<String> ownedObjects)
             throws IOException, InterruptedException {
-        String originalFilename = thumbnail.getOriginalFilename();
+        String originalFilename = request.thumbnailFilename();
         String extension = "";
         if (originalFilename != null && originalFilename.contains(".")) {
             extension = originalFilename.substring(originalFilename.lastIndexOf("."));
         }
 
         String objectName = "thumbnails/" + gameId + extension;
-        objectStorageService.uploadFile(objectName, thumbnail.getBytes(), thumbnail.getContentType());
+        String contentType = request.thumbnailContentType() != null
+                ? request.thumbnailContentType() : guessContentType(objectName);
+        long size = Files.size(request.thumbnail());
+        ownedObjects.add(objectName);
+        String contentHash = uploadHashed(objectName, () -> Files.newInputStream(request.thumbnail()), size, contentType);
+        assets.add(new GameAsset(gameId, objectName, contentHash, size, contentType));
+
+        return objectName;
+    }
 
-        return "/api/files/" + objectName;
+    /**
+     * Best-effort removal of a failed upload's objects and of the blobs it stored. Blobs that
+     * cannot be dropped here stay unreferenced and are left to {@link AssetBlobService#sweepUnreferenced()}.
+     * The interrupt flag of a cancelled upload is held back meanwhile so the deletes can still go out.
+     */
+    private void deleteQuietly(List<String> ownedObjects, Set<String> createdBlobs) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            List<String> objectNames = new ArrayList<>(ownedObjects);
+            if (!createdBlobs.isEmpty()) {
+                try {
+                    objectNames.addAll(assetBlobService.dropUnreferenced(createdBlobs));
+                } catch (RuntimeException e) {
+                    log.warn("Failed to drop the blobs of a failed upload; the blob sweep will collect them", e);
+                }
+            }
+            for (String objectName : objectNames) {
+                try {
+                    objectStorageService.deleteFile(objectName);
+                } catch (IOException | InterruptedException e) {
+                    log.warn("Failed to delete {} after a failed upload", objectName, e);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
-    private String extractAndUploadGameFiles(String gameId, MultipartFile gameFile)
+    private ZipFile openArchive(Path zipPath) throws InvalidGameArchiveException {
+        try {
+            return new ZipFile(zipPath.toFile());
+        } catch (IOException e) {
+            throw new InvalidGameArchiveException("Game file is not a valid zip archive", e);
+        }
+    }
+
+    /**
+     * Streams each entry from the spooled archive straight into its PUT on a virtual thread. At most
+     * {@code uploadConcurrency} entries are in flight at once; submitting the next entry waits for a
+     * free slot. The first failed upload cancels the rest and fails the whole game.
+     * <p>
+     * All entries are hashed up front, so content already in storage is found with one query and the
+     * PUT URLs for the remaining blobs are signed as one batch instead of one sidecar call in front
+     * of every upload.
+     */
+    private void extractAndUploadGameFiles(String gameId, ZipFile zipFile,
+                                           List<GameArchiveScanner.ScannedEntry> entries, List<GameAsset> assets,
+                                           Set<String> createdBlobs, UploadProgress progress)
             throws IOException, InterruptedException {
-        String entryPoint = null;
-        int entryCount = 0;
-        long totalSize = 0;
-
-        try (ZipInputStream zis = new ZipInputStream(gameFile.getInputStream())) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                if (entry.isDirectory()) {
-                    continue;
-                }
+        List<String> hashes = hashEntries(zipFile, entries);
+        Map<String, AssetBlob> storedBlobs = assetBlobService.findAll(new HashSet<>(hashes));
+        presignBlobUploads(hashes, storedBlobs);
+
+        ExecutorService uploads = Executors.newVirtualThreadPerTaskExecutor();
+        CompletionService<GameAsset> completion = new ExecutorCompletionService<>(uploads);
+        Semaphore slots = new Semaphore(uploadConcurrency);
+        AtomicReference<Exception> firstFailure = new AtomicReference<>();
+        List<Future<GameAsset>> pending = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < entries.size(); i++) {
+                ZipEntry entry = entries.get(i).entry();
+                String sanitizedName = entries.get(i).path();
+                String contentHash = hashes.get(i);
 
-                String entryName = entry.getName();
+                String contentType = guessContentType(sanitizedName);
+                String objectName = "games/" + gameId + "/" + sanitizedName;
 
-                if (entryName.startsWith("__MACOSX/") || entryName.startsWith("._")) {
-                    zis.closeEntry();
-                    continue;
-                }
+                slots.acquire();
+                throwIfFailed(firstFailure);
+
+                pending.add(completion.submit(() -> {
+                    try {
+                        GameAsset asset = uploadEntry(gameId, zipFile, entry, objectName, contentType,
+                                contentHash, storedBlobs.get(contentHash), createdBlobs);
+                        progress.entryDone(asset.getSize());
+                        return asset;
+                    } catch (Exception e) {
+                        firstFailure.compareAndSet(null, e instanceof InvalidGameArchiveException ? e
+                                : new IOException("Failed to upload game file " + objectName + ": " + e.getMessage(), e));
+                        throw e;
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
 
-                String sanitizedName = sanitizeEntryName(entryName);
-                if (sanitizedName == null) {
-                    log.warn("Skipping unsafe zip entry: {}", entryName);
-                    zis.closeEntry();
-                    continue;
+            // Waiting in completion order sees the first failure while slower uploads are still running.
+            for (int i = 0; i < pending.size(); i++) {
+                try {
+                    completion.take().get();
+                } catch (ExecutionException e) {
+                    throwIfFailed(firstFailure);
+                    throw new IOException("Failed to upload game files", e.getCause());
                 }
+            }
+            pending.forEach(upload -> assets.add(upload.resultNow()));
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            pending.forEach(upload -> upload.cancel(true));
+            if (!awaitStopped(uploads)) {
+                // a blob still being stored could be registered after it was dropped; leave them all to the sweep
+                createdBlobs.clear();
+            }
+            throw e;
+        } finally {
+            uploads.shutdownNow();
+        }
 
-                entryCount++;
-                if (entryCount > MAX_ENTRY_COUNT) {
-                    throw new IOException("Zip file contains too many entries (max: " + MAX_ENTRY_COUNT + ")");
-                }
+        logPrecompression(gameId, assets);
+    }
 
-                byte[] content = readZipEntryContent(zis, MAX_SINGLE_ENTRY_SIZE);
-                totalSize += content.length;
-                if (totalSize > MAX_TOTAL_UNCOMPRESSED_SIZE) {
-                    throw new IOException("Zip file total uncompressed size exceeds limit (max: "
-                            + (MAX_TOTAL_UNCOMPRESSED_SIZE / 1024 / 1024) + "MB)");
+    /**
+     * Waits for cancelled entry uploads to stop, so that none stores or registers a blob after the
+     * failed upload has been cleaned up. The interrupt flag is held back meanwhile.
+     *
+     * @return false if some were still running when the wait gave up
+     */
+    private static boolean awaitStopped(ExecutorService uploads) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            uploads.shutdownNow();
+            if (uploads.awaitTermination(30, TimeUnit.SECONDS)) {
+                return true;
+            }
+            log.warn("Cancelled game file uploads are still running; their blobs are left to the blob sweep");
+            return false;
+        } catch (InterruptedException e) {
+            interrupted = true;
+            return false;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Repacks every entry into one {@link GameBundle} on local disk and uploads it with a single PUT.
+     * Each entry is hashed while it is copied into the bundle, and its gzip variant, if worthwhile,
+     * is stored right after it.
+     */
+    private void bundleAndUploadGameFiles(String gameId, ZipFile zipFile,
+                                          List<GameArchiveScanner.ScannedEntry> entries, List<GameAsset> assets,
+                                          List<String> ownedObjects, UploadProgress progress)
+            throws IOException, InterruptedException {
+        String bundleName = GameBundle.objectNameOf(gameId);
+        Path bundlePath = Files.createTempFile("arcadex-bundle-", ".bundle");
+        try {
+            try (GameBundle.Writer writer = new GameBundle.Writer(Files.newOutputStream(bundlePath))) {
+                for (GameArchiveScanner.ScannedEntry scanned : entries) {
+                    ZipEntry entry = scanned.entry();
+                    String objectName = "games/" + gameId + "/" + scanned.path();
+                    String contentType = guessContentType(scanned.path());
+                    long size = entry.getSize();
+                    InputStreamSource source = entrySource(zipFile, entry);
+
+                    long offset = writer.position();
+                    MessageDigest digest = ContentHash.newDigest();
+                    try (InputStream in = new DigestInputStream(source.getInputStream(), digest)) {
+                        writer.write(in);
+                    }
+                    String contentHash = ContentHash.toHex(digest);
+
+                    Long gzipOffset = null;
+                    Long gzipSize = null;
+                    SpoolOutputStream gzipped = precompress(source, size, contentType);
+                    if (gzipped != null) {
+                        try (InputStream in = gzipped.openInputStream()) {
+                            gzipOffset = writer.position();
+                            gzipSize = writer.write(in);
+                        } finally {
+                            gzipped.discard();
+                        }
+                    }
+
+                    writer.index(new GameBundle.Entry(objectName, offset, size, contentType, contentHash,
+                            gzipOffset, gzipSize));
+                    GameAsset asset = new GameAsset(gameId, objectName, contentHash, size, contentType);
+                    asset.setStorageObjectName(bundleName);
+                    asset.setGzipSize(gzipSize);
+                    assets.add(asset);
+                    progress.entryDone(size);
                 }
+            }
 
-                String contentType = guessContentType(sanitizedName);
-                String objectName = "games/" + gameId + "/" + sanitizedName;
+            ownedObjects.add(bundleName);
+            objectStorageService.uploadFile(bundleName, () -> Files.newInputStream(bundlePath),
+                    Files.size(bundlePath), GameBundle.CONTENT_TYPE);
+        } finally {
+            Files.deleteIfExists(bundlePath);
+        }
 
-                objectStorageService.uploadFile(objectName, content, contentType);
-                log.debug("Uploaded game file: {}", objectName);
+        log.info("Bundled {} files of game {} into {}", entries.size(), gameId, bundleName);
+        logPrecompression(gameId, assets);
+    }
 
-                if (entryPoint == null && sanitizedName.endsWith("index.html")) {
-                    entryPoint = "/api/files/games/" + gameId + "/" + sanitizedName;
+    private String entryPointOf(String gameId, List<GameArchiveScanner.ScannedEntry> entries) {
+        for (GameArchiveScanner.ScannedEntry entry : entries) {
+            if (entry.path().endsWith("index.html")) {
+                return "/api/files/games/" + gameId + "/" + entry.path();
+            }
+        }
+        return "/api/files/games/" + gameId;
+    }
+
+    /**
+     * Hashes every entry in a local pass, {@code uploadConcurrency} at a time.
+     *
+     * @return the content hash of each entry, in the order of {@code entries}
+     */
+    private List<String> hashEntries(ZipFile zipFile, List<GameArchiveScanner.ScannedEntry> entries)
+            throws IOException, InterruptedException {
+        ExecutorService hashing = Executors.newVirtualThreadPerTaskExecutor();
+        Semaphore slots = new Semaphore(uploadConcurrency);
+        List<Future<String>> pending = new ArrayList<>();
+        try {
+            for (GameArchiveScanner.ScannedEntry scanned : entries) {
+                ZipEntry entry = scanned.entry();
+                pending.add(hashing.submit(() -> {
+                    slots.acquire();
+                    try {
+                        return hash(entrySource(zipFile, entry));
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+
+            List<String> hashes = new ArrayList<>(entries.size());
+            for (Future<String> result : pending) {
+                try {
+                    hashes.add(result.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException ioException) {
+                        throw ioException;
+                    }
+                    throw new IOException("Failed to read game files", e.getCause());
                 }
+            }
+            return hashes;
+        } finally {
+            hashing.shutdownNow();
+        }
+    }
 
-                zis.closeEntry();
+    /**
+     * Signs the PUT URLs of every blob this game is about to store. Gzip variants are left out,
+     * since whether one is kept is only known once it has been compressed; the few that are get
+     * their URL signed as they are stored.
+     */
+    private void presignBlobUploads(List<String> hashes, Map<String, AssetBlob> storedBlobs)
+            throws IOException, InterruptedException {
+        Set<String> objectNames = new LinkedHashSet<>();
+        for (String contentHash : hashes) {
+            if (!storedBlobs.containsKey(contentHash)) {
+                objectNames.add(AssetBlobService.objectNameOf(contentHash));
             }
         }
+        objectStorageService.presign(objectNames, "PUT");
+    }
 
-        if (entryPoint == null) {
-            entryPoint = "/api/files/games/" + gameId;
+    /**
+     * Stores an entry under the hash of its content, or just references {@code stored} when that
+     * content (shared engines, fonts) is already in storage. Concurrent uploads of the same new
+     * content share one PUT.
+     */
+    private GameAsset uploadEntry(String gameId, ZipFile zipFile, ZipEntry entry, String objectName, String contentType,
+                                  String contentHash, AssetBlob stored, Set<String> createdBlobs)
+            throws IOException, InterruptedException {
+        long size = entry.getSize();
+        InputStreamSource source = entrySource(zipFile, entry);
+
+        GameAsset asset = new GameAsset(gameId, objectName, contentHash, size, contentType);
+        asset.setStorageObjectName(AssetBlobService.objectNameOf(contentHash));
+
+        if (stored != null) {
+            asset.setGzipSize(stored.getGzipSize());
+            blobsReused.increment();
+            deduplicatedBytes.increment(size);
+            log.debug("Reused stored blob for game file: {}", objectName);
+            return asset;
         }
 
-        return entryPoint;
+        asset.setGzipSize(blobUploads.execute(contentHash, () -> {
+            // only runs for the upload that leads the flight; the others share its blob without owning it
+            createdBlobs.add(contentHash);
+            return uploadBlob(contentHash, source, size, contentType);
+        }));
+        log.debug("Uploaded game file: {}", objectName);
+        return asset;
     }
 
-    private String sanitizeEntryName(String entryName) {
-        if (entryName == null || entryName.isBlank()) {
-            return null;
+    private Long uploadBlob(String contentHash, InputStreamSource source, long size, String contentType)
+            throws IOException, InterruptedException {
+        String blobName = AssetBlobService.objectNameOf(contentHash);
+        String uploadedHash = uploadHashed(blobName, source, size, contentType);
+        if (!uploadedHash.equals(contentHash)) {
+            throw new IOException("Content of " + blobName + " changed between hashing and upload");
         }
 
-        if (entryName.contains("..") || entryName.contains("\\")) {
-            return null;
+        Long gzipSize = precompressAndUpload(blobName, source, size, contentType);
+        assetBlobService.registerBlob(contentHash, size, gzipSize);
+        blobsStored.increment();
+        return gzipSize;
+    }
+
+    private InputStreamSource entrySource(ZipFile zipFile, ZipEntry entry) {
+        // The scan vouched for the declared size, so inflating past it means the directory lied.
+        long size = entry.getSize();
+        return () -> limited(zipFile.getInputStream(entry), size);
+    }
+
+    private String hash(InputStreamSource source) throws IOException {
+        MessageDigest digest = ContentHash.newDigest();
+        try (InputStream in = new DigestInputStream(source.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
         }
+        return ContentHash.toHex(digest);
+    }
 
-        if (entryName.startsWith("/")) {
-            return null;
+    /**
+     * Uploads {@code source} and returns the SHA-256 of the bytes that were sent, computed on the fly.
+     */
+    private String uploadHashed(String objectName, InputStreamSource source, long size, String contentType)
+            throws IOException, InterruptedException {
+        AtomicReference<MessageDigest> digest = new AtomicReference<>();
+        InputStreamSource hashing = () -> {
+            // a replayed request must not hash the bytes twice
+            MessageDigest fresh = ContentHash.newDigest();
+            digest.set(fresh);
+            return new DigestInputStream(source.getInputStream(), fresh);
+        };
+        objectStorageService.uploadFile(objectName, hashing, size, contentType);
+        return ContentHash.toHex(digest.get());
+    }
+
+    private void throwIfFailed(AtomicReference<Exception> failure) throws IOException {
+        Exception e = failure.get();
+        if (e instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (e != null) {
+            throw new IOException(e.getMessage(), e);
         }
+    }
 
-        Path normalized = Paths.get(entryName).normalize();
-        String normalizedStr = normalized.toString();
+    private void logPrecompression(String gameId, List<GameAsset> assets) {
+        int precompressedCount = 0;
+        long originalBytes = 0;
+        long gzipBytes = 0;
+        for (GameAsset asset : assets) {
+            if (asset.hasGzipVariant()) {
+                precompressedCount++;
+                originalBytes += asset.getSize();
+                gzipBytes += asset.getGzipSize();
+            }
+        }
+        if (precompressedCount > 0) {
+            log.info("Precompressed {} text assets for game {}: {} -> {} bytes ({}% saved)",
+                    precompressedCount, gameId, originalBytes, gzipBytes, 100 - (gzipBytes * 100 / originalBytes));
+        }
+    }
 
-        if (normalizedStr.startsWith("..") || normalizedStr.startsWith("/")) {
+    /**
+     * Stores a gzip variant of a text asset next to it.
+     *
+     * @return the size of the stored variant, or null if the asset is not text or does not shrink enough
+     */
+    private Long precompressAndUpload(String objectName, InputStreamSource source, long size, String contentType)
+            throws IOException, InterruptedException {
+        SpoolOutputStream gzipped = precompress(source, size, contentType);
+        if (gzipped == null) {
             return null;
         }
+        try {
+            objectStorageService.uploadFile(objectName + GZIP_SUFFIX, gzipped::openInputStream, gzipped.size(), contentType);
+            return gzipped.size();
+        } finally {
+            gzipped.discard();
+        }
+    }
 
-        if (normalizedStr.length() > 255) {
+    /**
+     * Gzips a text asset into a spool so its length is known before it is stored. The caller must
+     * discard the returned spool.
+     *
+     * @return the compressed bytes, or null if the asset is not text or does not shrink enough
+     */
+    private SpoolOutputStream precompress(InputStreamSource source, long size, String contentType) throws IOException {
+        if (!isPrecompressionCandidate(size, contentType)) {
             return null;
         }
 
-        int depth = normalized.getNameCount();
-        if (depth > 10) {
+        SpoolOutputStream gzipped = new SpoolOutputStream(spoolMemoryThreshold);
+        try {
+            try (InputStream in = source.getInputStream(); GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+                in.transferTo(gzip);
+            }
+        } catch (IOException | RuntimeException e) {
+            gzipped.discard();
+            throw e;
+        }
+        if (gzipped.size() >= size * 0.9) {
+            gzipped.discard();
             return null;
         }
+        return gzipped;
+    }
+
+    private boolean isPrecompressionCandidate(long size, String contentType) {
+        return size >= MIN_PRECOMPRESS_SIZE && isCompressibleContentType(contentType);
+    }
 
-        return normalizedStr;
+    private boolean isCompressibleContentType(String contentType) {
+        return contentType.startsWith("text/")
+                || contentType.equals("application/javascript")
+                || contentType.equals("application/json")
+                || contentType.equals("application/xml")
+                || contentType.equals("image/svg+xml");
     }
 
-    private byte[] readZipEntryContent(InputStream is, long maxSize) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        byte[] buffer = new byte[8192];
-        long totalRead = 0;
-        int len;
-        while ((len = is.read(buffer)) != -1) {
-            totalRead += len;
-            if (totalRead > maxSize) {
-                throw new IOException("Single zip entry exceeds size limit (max: "
-                        + (maxSize / 1024 / 1024) + "MB)");
+    /**
+     * Guards against archives whose central directory under-reports an entry's size.
+     */
+    private InputStream limited(InputStream in, long declaredSize) {
+        return new FilterInputStream(in) {
+            private long remaining = declaredSize;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1 && --remaining < 0) {
+                    throw new InvalidGameArchiveException("Zip entry is larger than its declared size");
+                }
+                return b;
             }
-            baos.write(buffer, 0, len);
-        }
-        return baos.toByteArray();
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    remaining -= n;
+                    if (remaining < 0) {
+                        throw new InvalidGameArchiveException("Zip entry is larger than its declared size");
+                    }
+                }
+                return n;
+            }
+        };
     }
 
     private String guessContentType(String filename) {
@@ -0,0 +1,165 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.entity.Game;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over the catalog for databases without full-text search (H2 in development). It
+ * follows the Postgres search closely enough to develop against: every query word must match a
+ * whole word of the title, category or description, and matches are weighted like
+ * {@code ts_rank}'s defaults for the A, B and C labels those fields get there. There is no
+ * stemming.
+ * <p>
+ * Instances are immutable; the catalog is indexed again when it changes.
+ */
+final class InMemoryGameSearchIndex {
+
+    static final char MARK_START = '\u0001';
+    static final char MARK_END = '\u0002';
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final double TITLE_WEIGHT = 1.0;
+    private static final double CATEGORY_WEIGHT = 0.4;
+    private static final double DESCRIPTION_WEIGHT = 0.2;
+    private static final int SNIPPET_WORDS = 35;
+    private static final int SNIPPET_LEAD_WORDS = 5;
+
+    // word -> game id -> weighted occurrences
+    private final Map<String, Map<Long, Double>> postings;
+    private final Map<Long, Game> games;
+
+    private InMemoryGameSearchIndex(Map<String, Map<Long, Double>> postings, Map<Long, Game> games) {
+        this.postings = postings;
+        this.games = games;
+    }
+
+    static InMemoryGameSearchIndex build(Collection<Game> catalog) {
+        Map<String, Map<Long, Double>> postings = new HashMap<>();
+        Map<Long, Game> games = new HashMap<>();
+        for (Game game : catalog) {
+            games.put(game.getId(), game);
+            addWords(postings, game.getId(), game.getTitle(), TITLE_WEIGHT);
+            addWords(postings, game.getId(), game.getCategory(), CATEGORY_WEIGHT);
+            addWords(postings, game.getId(), game.getDescription(), DESCRIPTION_WEIGHT);
+        }
+        return new InMemoryGameSearchIndex(postings, games);
+    }
+
+    /**
+     * @return up to {@code limit} hits after the first {@code offset}, best first, with highlights
+     * marked by {@link #MARK_START} and {@link #MARK_END}
+     */
+    List<GameSearchHit> search(String query, int offset, int limit) {
+        Set<String> terms = words(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Double> ranks = null;
+        for (String term : terms) {
+            Map<Long, Double> matches = postings.getOrDefault(term, Map.of());
+            if (ranks == null) {
+                ranks = new HashMap<>(matches);
+            } else {
+                ranks.keySet().retainAll(matches.keySet());
+                ranks.replaceAll((id, rank) -> rank + matches.get(id));
+            }
+            if (ranks.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(ranks.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+
+        List<GameSearchHit> hits = new ArrayList<>();
+        for (int i = offset; i < ranked.size() && hits.size() < limit; i++) {
+            Game game = games.get(ranked.get(i).getKey());
+            hits.add(new GameSearchHit(game, ranked.get(i).getValue(),
+                    mark(game.getTitle(), terms, 0, Integer.MAX_VALUE),
+                    snippet(game.getDescription(), terms)));
+        }
+        return hits;
+    }
+
+    int size() {
+        return games.size();
+    }
+
+    private static void addWords(Map<String, Map<Long, Double>> postings, long gameId, String text, double weight) {
+        if (text == null) {
+            return;
+        }
+        Matcher words = WORD.matcher(text);
+        while (words.find()) {
+            postings.computeIfAbsent(normalize(words.group()), w -> new HashMap<>())
+                    .merge(gameId, weight, Double::sum);
+        }
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find()) {
+            words.add(normalize(matcher.group()));
+        }
+        return words;
+    }
+
+    private static String normalize(String word) {
+        return word.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns about {@value #SNIPPET_WORDS} words of {@code text} starting just before its first
+     * matching word, with matches marked.
+     */
+    private static String snippet(String text, Set<String> terms) {
+        if (text == null) {
+            return null;
+        }
+        List<Integer> starts = new ArrayList<>();
+        int firstMatch = -1;
+        Matcher words = WORD.matcher(text);
+        while (words.find()) {
+            if (firstMatch < 0 && terms.contains(normalize(words.group()))) {
+                firstMatch = starts.size();
+            }
+            starts.add(words.start());
+        }
+        int fromWord = Math.max(0, firstMatch - SNIPPET_LEAD_WORDS);
+        int from = starts.isEmpty() ? 0 : starts.get(fromWord);
+        int to = fromWord + SNIPPET_WORDS < starts.size() ? starts.get(fromWord + SNIPPET_WORDS) : text.length();
+        return mark(text, terms, from, to).strip();
+    }
+
+    private static String mark(String text, Set<String> terms, int from, int to) {
+        if (text == null) {
+            return null;
+        }
+        int end = Math.min(to, text.length());
+        StringBuilder marked = new StringBuilder(end - from + 8);
+        Matcher words = WORD.matcher(text).region(from, end);
+        int copied = from;
+        while (words.find()) {
+            if (terms.contains(normalize(words.group()))) {
+                marked.append(text, copied, words.start())
+                        .append(MARK_START).append(words.group()).append(MARK_END);
+                copied = words.end();
+            }
+        }
+        return marked.append(text, copied, end).toString();
+    }
+}
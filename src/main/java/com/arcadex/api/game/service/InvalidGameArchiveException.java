@@ -0,0 +1,19 @@
+package com.arcadex.api.game.service;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an uploaded game archive is rejected before any of it is stored, e.g. because it
+ * is not a zip, exceeds the size limits or looks like a zip bomb. The message is safe to show
+ * to the uploader.
+ */
+public class InvalidGameArchiveException extends IOException {
+
+    public InvalidGameArchiveException(String message) {
+        super(message);
+    }
+
+    public InvalidGameArchiveException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
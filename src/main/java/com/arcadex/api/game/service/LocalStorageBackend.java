@@ -0,0 +1,188 @@
+package com.arcadex.api.game.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Stores objects as files under {@code storage.local.directory}, for self-hosted nodes and load
+ * tests that run without the object storage sidecar. Writes go to a temp file that is renamed into
+ * place, so readers see either the previous object or the complete new one. There are no signed
+ * URLs, so every object is proxied.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalStorageBackend.class);
+    private static final String TEMP_PREFIX = ".upload-";
+
+    private final Path root;
+
+    public LocalStorageBackend(@Value("${storage.local.directory:${java.io.tmpdir}/arcadex-storage}") String directory)
+            throws IOException {
+        this.root = Paths.get(directory).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        log.info("Local object storage enabled: directory={}", root);
+    }
+
+    @Override
+    public void upload(String objectName, InputStreamSource source, long contentLength, String contentType)
+            throws IOException {
+        Path target = resolve(objectName);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), TEMP_PREFIX, ".tmp");
+        try {
+            long written;
+            try (InputStream in = source.getInputStream(); OutputStream out = Files.newOutputStream(temp)) {
+                written = in.transferTo(out);
+            }
+            if (contentLength >= 0 && written != contentLength) {
+                throw new IOException("Expected " + contentLength + " bytes for " + objectName + " but got " + written);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.info("Stored file: {}", target);
+    }
+
+    /**
+     * Honours a single byte range; multiple ranges or a malformed header get the whole object.
+     */
+    @Override
+    public ObjectDownload openDownload(String objectName, String rangeHeader) throws IOException {
+        Path file = resolve(objectName);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            FileTime modified = Files.getLastModifiedTime(file);
+            String eTag = "\"" + Long.toHexString(modified.toMillis()) + "-" + Long.toHexString(size) + "\"";
+            String lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                    modified.toInstant().truncatedTo(ChronoUnit.SECONDS).atZone(ZoneOffset.UTC));
+
+            HttpRange range = singleRange(rangeHeader);
+            if (range == null) {
+                return new ObjectDownload(new RegionInputStream(channel, 0, size), size, null, eTag, lastModified);
+            }
+
+            long start;
+            long end;
+            try {
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                throw new ObjectRangeNotSatisfiableException(objectName, size);
+            }
+            long length = end - start + 1;
+            return new ObjectDownload(new RegionInputStream(channel, start, length), length,
+                    "bytes " + start + "-" + end + "/" + size, eTag, lastModified);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(String objectName) throws IOException {
+        if (Files.deleteIfExists(resolve(objectName))) {
+            log.info("Deleted file: {}/{}", root, objectName);
+        }
+    }
+
+    private Path resolve(String objectName) throws IOException {
+        Path file = root.resolve(objectName).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            throw new IOException("Object name escapes the storage directory: " + objectName);
+        }
+        return file;
+    }
+
+    private static HttpRange singleRange(String rangeHeader) {
+        if (rangeHeader == null || rangeHeader.isBlank()) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a region of a file with positional reads, so it does not depend on the channel position.
+     * Closing the stream closes the file.
+     */
+    private static final class RegionInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RegionInputStream(FileChannel channel, long start, long length) {
+            this.channel = channel;
+            this.position = start;
+            this.end = start + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(buffer, offset, (int) Math.min(length, end - position)), position);
+            if (read < 0) {
+                return -1;
+            }
+            position += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, end - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.arcadex.api.game.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An open download from object storage. The body is read lazily from the
+ * underlying connection, so callers must close it once the bytes are consumed.
+ */
+public class ObjectDownload implements Closeable {
+
+    private final InputStream inputStream;
+    private final long contentLength;
+    private final String contentRange;
+    private final String eTag;
+    private final String lastModified;
+
+    public ObjectDownload(InputStream inputStream, long contentLength) {
+        this(inputStream, contentLength, null, null, null);
+    }
+
+    public ObjectDownload(InputStream inputStream, long contentLength, String contentRange,
+                          String eTag, String lastModified) {
+        this.inputStream = inputStream;
+        this.contentLength = contentLength;
+        this.contentRange = contentRange;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    public InputStream getInputStream() { return inputStream; }
+
+    /**
+     * @return the body length in bytes, or -1 if the storage response did not declare one
+     */
+    public long getContentLength() { return contentLength; }
+
+    /**
+     * @return the {@code Content-Range} of a partial response, or null if the whole object was returned
+     */
+    public String getContentRange() { return contentRange; }
+
+    public String getETag() { return eTag; }
+
+    public String getLastModified() { return lastModified; }
+
+    public boolean isPartial() {
+        return contentRange != null;
+    }
+
+    /**
+     * @return the full object size, or -1 if storage did not report it
+     */
+    public long getTotalLength() {
+        return contentRange == null ? contentLength : parseTotalLength(contentRange);
+    }
+
+    static long parseTotalLength(String contentRange) {
+        int slash = contentRange.lastIndexOf('/');
+        if (slash < 0 || contentRange.endsWith("*")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public long transferTo(OutputStream out) throws IOException {
+        return inputStream.transferTo(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
@@ -0,0 +1,18 @@
+package com.arcadex.api.game.service;
+
+import java.io.IOException;
+
+public class ObjectRangeNotSatisfiableException extends IOException {
+
+    private final long totalLength;
+
+    public ObjectRangeNotSatisfiableException(String objectName, long totalLength) {
+        super("Requested range not satisfiable for " + objectName);
+        this.totalLength = totalLength;
+    }
+
+    /**
+     * @return the object size reported by storage, or -1 if unknown
+     */
+    public long getTotalLength() { return totalLength; }
+}
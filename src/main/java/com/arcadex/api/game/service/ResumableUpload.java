@@ -0,0 +1,135 @@
+package com.arcadex.api.game.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A game archive arriving in fixed-size chunks. Every chunk is written straight to its offset
+ * in a preallocated spool file, so chunks may arrive in any order, in parallel, or more than once.
+ */
+public class ResumableUpload {
+
+    private final String id;
+    private final String title;
+    private final String description;
+    private final String category;
+    private final Path thumbnail;
+    private final String thumbnailFilename;
+    private final String thumbnailContentType;
+    private final Path archive;
+    private final FileChannel channel;
+    private final long totalSize;
+    private final int chunkSize;
+    private final int chunkCount;
+
+    // guarded by this
+    private final BitSet received;
+    private volatile Instant lastActivity = Instant.now();
+
+    ResumableUpload(String id, String title, String description, String category,
+                    Path thumbnail, String thumbnailFilename, String thumbnailContentType,
+                    Path archive, FileChannel channel, long totalSize, int chunkSize) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.category = category;
+        this.thumbnail = thumbnail;
+        this.thumbnailFilename = thumbnailFilename;
+        this.thumbnailContentType = thumbnailContentType;
+        this.archive = archive;
+        this.channel = channel;
+        this.totalSize = totalSize;
+        this.chunkSize = chunkSize;
+        this.chunkCount = (int) ((totalSize + chunkSize - 1) / chunkSize);
+        this.received = new BitSet(chunkCount);
+    }
+
+    public String getId() { return id; }
+
+    public String getTitle() { return title; }
+
+    public long getTotalSize() { return totalSize; }
+
+    public int getChunkSize() { return chunkSize; }
+
+    public int getChunkCount() { return chunkCount; }
+
+    public Instant getLastActivity() { return lastActivity; }
+
+    public synchronized List<Integer> getReceivedChunks() {
+        List<Integer> chunks = new ArrayList<>(received.cardinality());
+        received.stream().forEach(chunks::add);
+        return chunks;
+    }
+
+    public synchronized int getMissingChunkCount() {
+        return chunkCount - received.cardinality();
+    }
+
+    /**
+     * Writes one chunk at its offset. The chunk only counts as received once all of its bytes
+     * are on disk, so a dropped connection simply leaves it missing.
+     *
+     * @throws IllegalArgumentException if the index is out of range or the body has the wrong length
+     */
+    void writeChunk(int index, InputStream body) throws IOException {
+        if (index < 0 || index >= chunkCount) {
+            throw new IllegalArgumentException("Chunk index out of range (0-" + (chunkCount - 1) + ")");
+        }
+        long offset = (long) index * chunkSize;
+        long expected = Math.min(chunkSize, totalSize - offset);
+
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        byte[] array = buffer.array();
+        long written = 0;
+        int read;
+        while ((read = body.read(array, 0, (int) Math.min(array.length, expected - written + 1))) != -1) {
+            if (written + read > expected) {
+                throw new IllegalArgumentException("Chunk " + index + " is longer than " + expected + " bytes");
+            }
+            buffer.clear().limit(read);
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer, offset + written);
+            }
+            lastActivity = Instant.now();
+        }
+        if (written != expected) {
+            throw new IllegalArgumentException("Chunk " + index + " has " + written + " bytes, expected " + expected);
+        }
+
+        synchronized (this) {
+            received.set(index);
+        }
+        lastActivity = Instant.now();
+    }
+
+    synchronized boolean isComplete() {
+        return received.cardinality() == chunkCount;
+    }
+
+    /**
+     * Flushes the spool and turns it into a regular upload request, which then owns the files.
+     *
+     * @param onDiscard runs when the request is discarded
+     */
+    GameUploadRequest toRequest(Runnable onDiscard) throws IOException {
+        channel.force(false);
+        channel.close();
+        return new GameUploadRequest(title, description, category, archive, thumbnail,
+                thumbnailFilename, thumbnailContentType, onDiscard);
+    }
+
+    void discard() throws IOException {
+        channel.close();
+        Files.deleteIfExists(archive);
+        Files.deleteIfExists(thumbnail);
+    }
+}
@@ -0,0 +1,221 @@
+package com.arcadex.api.game.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks resumable uploads of large game archives. A client initiates an upload, sends the
+ * archive in chunks (in any order, in parallel, retrying any that failed), asks which chunks
+ * are still missing, and completes it, at which point the spooled archive goes through the
+ * regular {@link GameUploadService} extraction. Uploads idle for longer than the expiry are
+ * discarded.
+ * <p>
+ * Each upload reserves its full size on local disk when it is initiated, so the number of open
+ * uploads and the bytes they reserve are capped; further uploads are turned away until some are
+ * aborted, expire, or complete and have their spooled request discarded. A completed upload keeps
+ * its reservation while it is queued and extracted, since its archive is still on disk until then.
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    private final int chunkSize;
+    private final long maxSize;
+    private final Duration expiry;
+    private final int maxSessions;
+    private final long maxSpoolBytes;
+    private final Map<String, ResumableUpload> uploads = new ConcurrentHashMap<>();
+
+    // guarded by this; counts uploads from the moment they pass the limits, before their files exist
+    private int reservedSessions;
+    private long reservedBytes;
+
+    public ResumableUploadService(@Value("${game.upload.resumable.chunk-size:8388608}") int chunkSize,
+                                  @Value("${game.upload.resumable.max-size:104857600}") long maxSize,
+                                  @Value("${game.upload.resumable.expiry-minutes:60}") long expiryMinutes,
+                                  @Value("${game.upload.resumable.max-sessions:20}") int maxSessions,
+                                  @Value("${game.upload.resumable.max-spool-bytes:1073741824}") long maxSpoolBytes,
+                                  MeterRegistry meterRegistry) {
+        this.chunkSize = chunkSize;
+        this.maxSize = maxSize;
+        this.expiry = Duration.ofMinutes(expiryMinutes);
+        this.maxSessions = maxSessions;
+        this.maxSpoolBytes = maxSpoolBytes;
+
+        Gauge.builder("game.upload.resumable.sessions", uploads, Map::size)
+                .description("Resumable uploads that have been initiated but not completed")
+                .register(meterRegistry);
+        Gauge.builder("game.upload.resumable.spool-bytes", this, ResumableUploadService::getReservedBytes)
+                .description("Local disk reserved by resumable uploads that are open or still being processed")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code totalSize} is not positive or over the limit
+     * @throws IllegalStateException    if too many uploads are open, or they already reserve too
+     *                                  much disk to take this one
+     */
+    public ResumableUpload initiate(String title, String description, String category,
+                                    MultipartFile thumbnail, long totalSize) throws IOException {
+        if (totalSize <= 0 || totalSize > maxSize) {
+            throw new IllegalArgumentException("Game file size must be between 1 and " + maxSize + " bytes");
+        }
+        purgeExpired();
+        reserve(totalSize);
+
+        Path archive = Files.createTempFile("arcadex-resumable-", ".zip");
+        Path thumbnailFile = null;
+        FileChannel channel = null;
+        try {
+            thumbnailFile = Files.createTempFile("arcadex-thumbnail-", ".tmp");
+            thumbnail.transferTo(thumbnailFile);
+            // Reserve the full length up front; chunks then only overwrite their own region.
+            try (RandomAccessFile file = new RandomAccessFile(archive.toFile(), "rw")) {
+                file.setLength(totalSize);
+            }
+            channel = FileChannel.open(archive, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException | RuntimeException e) {
+            release(totalSize);
+            Files.deleteIfExists(archive);
+            if (thumbnailFile != null) {
+                Files.deleteIfExists(thumbnailFile);
+            }
+            throw e;
+        }
+
+        ResumableUpload upload = new ResumableUpload(UUID.randomUUID().toString(), title, description, category,
+                thumbnailFile, thumbnail.getOriginalFilename(), thumbnail.getContentType(),
+                archive, channel, totalSize, chunkSize);
+        uploads.put(upload.getId(), upload);
+        log.info("Initiated resumable upload {}: {} bytes in {} chunks", upload.getId(), totalSize, upload.getChunkCount());
+        return upload;
+    }
+
+    public Optional<ResumableUpload> find(String uploadId) {
+        return Optional.ofNullable(uploads.get(uploadId));
+    }
+
+    /**
+     * @return false if there is no such upload
+     * @throws IllegalArgumentException if the chunk does not fit the upload
+     */
+    public boolean writeChunk(String uploadId, int index, InputStream body) throws IOException {
+        ResumableUpload upload = uploads.get(uploadId);
+        if (upload == null) {
+            return false;
+        }
+        upload.writeChunk(index, body);
+        return true;
+    }
+
+    /**
+     * Ends the upload and hands over its spooled files. The caller owns the returned request and
+     * must discard it, which also releases the upload's reservation.
+     *
+     * @return the spooled request, or empty if there is no such upload
+     * @throws IllegalStateException if chunks are still missing
+     */
+    public Optional<GameUploadRequest> complete(String uploadId) throws IOException {
+        ResumableUpload upload = uploads.get(uploadId);
+        if (upload == null) {
+            return Optional.empty();
+        }
+        if (!upload.isComplete()) {
+            throw new IllegalStateException(upload.getMissingChunkCount() + " chunks are still missing");
+        }
+        // Only one of several concurrent completes may take the spool.
+        if (!uploads.remove(uploadId, upload)) {
+            return Optional.empty();
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable releaseOnce = () -> {
+            if (released.compareAndSet(false, true)) {
+                release(upload.getTotalSize());
+            }
+        };
+        try {
+            return Optional.of(upload.toRequest(releaseOnce));
+        } catch (IOException | RuntimeException e) {
+            releaseOnce.run();
+            upload.discard();
+            throw e;
+        }
+    }
+
+    /**
+     * @return false if there is no such upload
+     */
+    public boolean abort(String uploadId) throws IOException {
+        ResumableUpload upload = uploads.remove(uploadId);
+        if (upload == null) {
+            return false;
+        }
+        release(upload.getTotalSize());
+        upload.discard();
+        return true;
+    }
+
+    synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    private synchronized void reserve(long totalSize) {
+        if (reservedSessions >= maxSessions || reservedBytes + totalSize > maxSpoolBytes) {
+            throw new IllegalStateException("Too many uploads are in progress. Please try again later.");
+        }
+        reservedSessions++;
+        reservedBytes += totalSize;
+    }
+
+    private synchronized void release(long totalSize) {
+        reservedSessions--;
+        reservedBytes -= totalSize;
+    }
+
+    /**
+     * Discards uploads idle for longer than the expiry. Runs on a schedule as well as before each
+     * new upload, so abandoned spools are deleted even when no uploads come in.
+     */
+    @Scheduled(initialDelayString = "${game.upload.resumable.purge-interval-seconds:60}",
+            fixedDelayString = "${game.upload.resumable.purge-interval-seconds:60}", timeUnit = TimeUnit.SECONDS)
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(expiry);
+        for (ResumableUpload upload : uploads.values()) {
+            // a complete or abort racing with the purge owns the upload if it removes it first
+            if (!upload.getLastActivity().isBefore(cutoff) || !uploads.remove(upload.getId(), upload)) {
+                continue;
+            }
+            release(upload.getTotalSize());
+            try {
+                upload.discard();
+            } catch (IOException e) {
+                log.warn("Failed to delete spooled files of expired upload {}", upload.getId(), e);
+            }
+            log.info("Discarded expired resumable upload {}", upload.getId());
+        }
+    }
+}
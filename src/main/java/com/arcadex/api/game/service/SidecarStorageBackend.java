@@ -0,0 +1,299 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.config.http.OutboundHttpClient;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stores objects in the bucket named by {@code PUBLIC_OBJECT_SEARCH_PATHS}. Every transfer goes to
+ * a URL signed by the object storage sidecar, which is also what lets large files be redirected
+ * to storage instead of proxied.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "sidecar", matchIfMissing = true)
+public class SidecarStorageBackend implements StorageBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(SidecarStorageBackend.class);
+    private static final String SIDECAR_DESTINATION = "object-storage-sidecar";
+    private static final String STORAGE_DESTINATION = "object-storage";
+    // downloads hold their slot while the body streams to a possibly slow client, so they get a cap
+    // of their own rather than starving uploads and deletes
+    private static final String DOWNLOAD_DESTINATION = "object-storage-download";
+    private static final int SIGNED_URL_TTL_SECONDS = 900;
+
+    private final OutboundHttpClient httpClient;
+    private final String sidecarEndpoint;
+    private final Gson gson;
+    private final SignedUrlCache signedUrlCache;
+    private final SingleFlight<String, String> signing;
+
+    @Value("${PUBLIC_OBJECT_SEARCH_PATHS:}")
+    private String publicObjectSearchPaths;
+
+    @Value("${PRIVATE_OBJECT_DIR:}")
+    private String privateObjectDir;
+
+    public SidecarStorageBackend(OutboundHttpClient httpClient, SignedUrlCache signedUrlCache,
+                                @Value("${storage.sidecar.endpoint:http://127.0.0.1:1106}") String sidecarEndpoint,
+                                MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.sidecarEndpoint = sidecarEndpoint;
+        this.gson = new Gson();
+        this.signedUrlCache = signedUrlCache;
+        this.signing = new SingleFlight<>("signed-url", meterRegistry);
+    }
+
+    public String getPublicBasePath() {
+        if (publicObjectSearchPaths == null || publicObjectSearchPaths.isBlank()) {
+            throw new IllegalStateException("PUBLIC_OBJECT_SEARCH_PATHS is not configured");
+        }
+        return publicObjectSearchPaths.split(",")[0].trim();
+    }
+
+    public String getBucketName() {
+        String basePath = getPublicBasePath();
+        String normalized = basePath.startsWith("/") ? basePath.substring(1) : basePath;
+        return normalized.split("/")[0];
+    }
+
+    public String getPublicPrefix() {
+        String basePath = getPublicBasePath();
+        String normalized = basePath.startsWith("/") ? basePath.substring(1) : basePath;
+        String[] parts = normalized.split("/", 2);
+        return parts.length > 1 ? parts[1] : "";
+    }
+
+    private String getSignedUrl(String bucketName, String objectName, String method, int ttlSec)
+            throws IOException, InterruptedException {
+        return getSignedUrl(bucketName, objectName, method, ttlSec, Duration.ZERO);
+    }
+
+    /**
+     * @param minLifetime how long a cached URL must still be valid for to be reused
+     */
+    private String getSignedUrl(String bucketName, String objectName, String method, int ttlSec, Duration minLifetime)
+            throws IOException, InterruptedException {
+        String cachedUrl = signedUrlCache.get(bucketName, objectName, method, ttlSec, minLifetime);
+        if (cachedUrl != null) {
+            return cachedUrl;
+        }
+
+        return signing.execute(method + " " + ttlSec + "s " + bucketName + "/" + objectName,
+                () -> requestSignedUrl(bucketName, objectName, method, ttlSec));
+    }
+
+    private String requestSignedUrl(String bucketName, String objectName, String method, int ttlSec)
+            throws IOException, InterruptedException {
+        Instant expiresAt = Instant.now().plus(ttlSec, ChronoUnit.SECONDS);
+        JsonObject requestBody = new JsonObject();
+        requestBody.addProperty("bucket_name", bucketName);
+        requestBody.addProperty("object_name", objectName);
+        requestBody.addProperty("method", method);
+        requestBody.addProperty("expires_at", expiresAt.toString());
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(sidecarEndpoint + "/object-storage/signed-object-url"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(requestBody)))
+                .build();
+
+        HttpResponse<String> response = httpClient.send(SIDECAR_DESTINATION, request, HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() != 200) {
+            throw new IOException("Failed to get signed URL: status=" + response.statusCode()
+                    + ", body=" + response.body());
+        }
+
+        JsonObject jsonResponse = gson.fromJson(response.body(), JsonObject.class);
+        String signedUrl = jsonResponse.get("signed_url").getAsString();
+        signedUrlCache.put(bucketName, objectName, method, ttlSec, signedUrl, expiresAt);
+        return signedUrl;
+    }
+
+    /**
+     * Signs URLs for many objects ahead of use, so the transfers that follow find them cached. The
+     * sidecar signs one object per call, so the calls that are not already cached or in flight go
+     * out concurrently, bounded by the sidecar's destination limit, and this returns once all of
+     * them have answered. A failed signature is only logged; that object's transfer signs its own
+     * URL when it starts, and fails there if the sidecar still refuses.
+     */
+    @Override
+    public void presign(Collection<String> objectNames, String method) throws InterruptedException {
+        if (objectNames.isEmpty()) {
+            return;
+        }
+        String bucket = getBucketName();
+        String prefix = getPublicPrefix();
+
+        ExecutorService signers = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<String>> pending = new ArrayList<>();
+        int failed = 0;
+        try {
+            for (String objectName : new LinkedHashSet<>(objectNames)) {
+                String fullObjectName = prefix + "/" + objectName;
+                pending.add(signers.submit(() -> getSignedUrl(bucket, fullObjectName, method, SIGNED_URL_TTL_SECONDS)));
+            }
+            for (Future<String> signed : pending) {
+                try {
+                    signed.get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    log.warn("Failed to presign a {} URL; it will be signed when used", method, e.getCause());
+                }
+            }
+        } finally {
+            // Signing calls are shared with other callers through the flight, so they are never interrupted.
+            signers.shutdown();
+        }
+        log.debug("Presigned {} {} URLs, {} failed", pending.size() - failed, method, failed);
+    }
+
+    @Override
+    public void upload(String objectName, byte[] content, String contentType)
+            throws IOException, InterruptedException {
+        upload(objectName, HttpRequest.BodyPublishers.ofByteArray(content), contentType);
+    }
+
+    /**
+     * Streams the body into the PUT without buffering it. The source is opened again if the request
+     * has to be replayed.
+     */
+    @Override
+    public void upload(String objectName, InputStreamSource source, long contentLength, String contentType)
+            throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> {
+                    try {
+                        return source.getInputStream();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }),
+                contentLength);
+        upload(objectName, body, contentType);
+    }
+
+    private void upload(String objectName, HttpRequest.BodyPublisher body, String contentType)
+            throws IOException, InterruptedException {
+        String bucket = getBucketName();
+        String fullObjectName = getPublicPrefix() + "/" + objectName;
+
+        String signedUrl = getSignedUrl(bucket, fullObjectName, "PUT", SIGNED_URL_TTL_SECONDS);
+
+        HttpRequest uploadRequest = HttpRequest.newBuilder()
+                .uri(URI.create(signedUrl))
+                .header("Content-Type", contentType)
+                .PUT(body)
+                .build();
+
+        HttpResponse<String> response = httpClient.send(STORAGE_DESTINATION, uploadRequest, HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() != 200 && response.statusCode() != 201) {
+            throw new IOException("Failed to upload file: status=" + response.statusCode()
+                    + ", body=" + response.body());
+        }
+
+        log.info("Uploaded file: {}/{}", bucket, fullObjectName);
+    }
+
+    /**
+     * Forwards {@code rangeHeader} to storage, which may ignore it and return the whole object.
+     */
+    @Override
+    public ObjectDownload openDownload(String objectName, String rangeHeader)
+            throws IOException, InterruptedException {
+        String bucket = getBucketName();
+        String fullObjectName = getPublicPrefix() + "/" + objectName;
+
+        String signedUrl = getSignedUrl(bucket, fullObjectName, "GET", SIGNED_URL_TTL_SECONDS);
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+                .uri(URI.create(signedUrl))
+                .GET();
+        if (rangeHeader != null) {
+            requestBuilder.header("Range", rangeHeader);
+        }
+
+        HttpResponse<InputStream> response = httpClient.send(DOWNLOAD_DESTINATION, requestBuilder.build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        HttpHeaders headers = response.headers();
+
+        if (response.statusCode() == 416) {
+            response.body().close();
+            throw new ObjectRangeNotSatisfiableException(objectName,
+                    ObjectDownload.parseTotalLength(headers.firstValue("Content-Range").orElse("bytes */*")));
+        }
+
+        if (response.statusCode() != 200 && response.statusCode() != 206) {
+            response.body().close();
+            throw new IOException("Failed to download file: status=" + response.statusCode());
+        }
+
+        return new ObjectDownload(
+                response.body(),
+                headers.firstValueAsLong("Content-Length").orElse(-1L),
+                response.statusCode() == 206 ? headers.firstValue("Content-Range").orElse(null) : null,
+                headers.firstValue("ETag").orElse(null),
+                headers.firstValue("Last-Modified").orElse(null));
+    }
+
+    /**
+     * Signs for twice {@code ttlSec} and reuses the URL only while at least {@code ttlSec} of it is
+     * left, so every caller gets the lifetime it asked for and a URL is still shared for a while.
+     */
+    @Override
+    public String getSignedDownloadUrl(String objectName, int ttlSec)
+            throws IOException, InterruptedException {
+        String bucket = getBucketName();
+        String fullObjectName = getPublicPrefix() + "/" + objectName;
+        return getSignedUrl(bucket, fullObjectName, "GET", 2 * ttlSec, Duration.ofSeconds(ttlSec));
+    }
+
+    @Override
+    public void delete(String objectName) throws IOException, InterruptedException {
+        String bucket = getBucketName();
+        String fullObjectName = getPublicPrefix() + "/" + objectName;
+
+        String signedUrl = getSignedUrl(bucket, fullObjectName, "DELETE", SIGNED_URL_TTL_SECONDS);
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create(signedUrl))
+                .DELETE()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(STORAGE_DESTINATION, deleteRequest, HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() != 200 && response.statusCode() != 204 && response.statusCode() != 404) {
+            throw new IOException("Failed to delete file: status=" + response.statusCode()
+                    + ", body=" + response.body());
+        }
+
+        log.info("Deleted file: {}/{}", bucket, fullObjectName);
+    }
+}
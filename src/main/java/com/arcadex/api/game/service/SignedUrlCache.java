@@ -0,0 +1,111 @@
+package com.arcadex.api.game.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of signed object URLs keyed by (bucket, object, method, TTL), so a URL signed
+ * for a short lifetime is never handed to a caller that asked for a longer one. An entry is
+ * only handed out while it has more than the safety margin of lifetime left, so callers
+ * never receive a URL that could expire mid-transfer.
+ */
+@Component
+public class SignedUrlCache {
+
+    private final int maxEntries;
+    private final Duration safetyMargin;
+    private final Clock clock;
+    private final Map<Key, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public SignedUrlCache(@Value("${storage.signed-url.cache.max-entries:10000}") int maxEntries,
+                          @Value("${storage.signed-url.safety-margin-seconds:60}") long safetyMarginSeconds,
+                          MeterRegistry meterRegistry) {
+        this(maxEntries, Duration.ofSeconds(safetyMarginSeconds), meterRegistry, Clock.systemUTC());
+    }
+
+    SignedUrlCache(int maxEntries, Duration safetyMargin, MeterRegistry meterRegistry, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.safetyMargin = safetyMargin;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > SignedUrlCache.this.maxEntries;
+            }
+        };
+        this.hits = Counter.builder("storage.signed-url.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("storage.signed-url.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("storage.signed-url.cache.size", this, SignedUrlCache::size)
+                .register(meterRegistry);
+    }
+
+    public Duration getSafetyMargin() { return safetyMargin; }
+
+    /**
+     * @return a cached URL signed with {@code ttlSeconds} that stays valid for longer than the
+     * safety margin, or null
+     */
+    public String get(String bucketName, String objectName, String method, int ttlSeconds) {
+        return get(bucketName, objectName, method, ttlSeconds, Duration.ZERO);
+    }
+
+    /**
+     * Like {@link #get(String, String, String, int)}, for URLs handed to clients that may keep using
+     * them for a while: the URL must also stay valid for at least {@code minLifetime}.
+     */
+    public synchronized String get(String bucketName, String objectName, String method, int ttlSeconds,
+                                   Duration minLifetime) {
+        Key key = new Key(bucketName, objectName, method, ttlSeconds);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        Instant now = clock.instant();
+        if (!now.plus(safetyMargin).isBefore(entry.expiresAt())) {
+            entries.remove(key);
+            misses.increment();
+            return null;
+        }
+        if (now.plus(minLifetime).isAfter(entry.expiresAt())) {
+            // still good for other callers; a fresh URL replaces it once this caller has signed one
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.url();
+    }
+
+    /**
+     * @param ttlSeconds the lifetime the URL was requested with, which callers look it up by
+     */
+    public synchronized void put(String bucketName, String objectName, String method, int ttlSeconds,
+                                 String url, Instant expiresAt) {
+        entries.put(new Key(bucketName, objectName, method, ttlSeconds), new Entry(url, expiresAt));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private record Key(String bucketName, String objectName, String method, int ttlSeconds) {}
+
+    private record Entry(String url, Instant expiresAt) {}
+}
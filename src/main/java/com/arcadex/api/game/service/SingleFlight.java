@@ -0,0 +1,74 @@
+package com.arcadex.api.game.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Collapses concurrent loads of the same key into one call. The first caller runs the loader;
+ * callers arriving while it is in flight wait for and share its result or failure. Nothing is
+ * remembered once the call completes, so caching stays the job of the caller.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter collapsed;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.collapsed = Counter.builder("single-flight.collapsed")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    public V execute(K key, Loader<V> loader) throws IOException, InterruptedException {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            collapsed.increment();
+            return await(existing);
+        }
+
+        try {
+            V value = loader.load();
+            call.complete(value);
+            return value;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private V await(CompletableFuture<V> call) throws IOException, InterruptedException {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof InterruptedException) {
+                throw new InterruptedIOException("Shared load was interrupted");
+            }
+            throw new IOException("Shared load failed", cause);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws IOException, InterruptedException;
+    }
+}
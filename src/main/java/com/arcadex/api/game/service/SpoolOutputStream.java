@@ -0,0 +1,99 @@
+package com.arcadex.api.game.service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects bytes in memory up to a threshold and spills everything to a temp file beyond it, so
+ * generated content of unknown size can be uploaded with a known length without holding large
+ * bodies on the heap. Call {@link #discard()} once the content has been consumed.
+ */
+class SpoolOutputStream extends OutputStream {
+
+    private static final AtomicLong inMemoryBytes = new AtomicLong();
+
+    private final int memoryThreshold;
+    private byte[] buffer = new byte[0];
+    private int count;
+    private Path file;
+    private OutputStream fileOut;
+    private long size;
+
+    SpoolOutputStream(int memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /**
+     * @return bytes currently held in memory by all spools, for the upload heap gauge
+     */
+    static long getInMemoryBytes() {
+        return inMemoryBytes.get();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (file == null && (long) count + len > memoryThreshold) {
+            spill();
+        }
+        if (file != null) {
+            fileOut.write(b, off, len);
+        } else {
+            if (count + len > buffer.length) {
+                int grown = Math.min(memoryThreshold, Math.max(count + len, Math.max(8192, buffer.length * 2)));
+                inMemoryBytes.addAndGet(grown - buffer.length);
+                buffer = Arrays.copyOf(buffer, grown);
+            }
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+        }
+        size += len;
+    }
+
+    private void spill() throws IOException {
+        file = Files.createTempFile("arcadex-spool-", ".tmp");
+        fileOut = new BufferedOutputStream(Files.newOutputStream(file));
+        fileOut.write(buffer, 0, count);
+        releaseBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileOut != null) {
+            fileOut.close();
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public InputStream openInputStream() throws IOException {
+        return file != null ? Files.newInputStream(file) : new ByteArrayInputStream(buffer, 0, count);
+    }
+
+    public void discard() throws IOException {
+        close();
+        releaseBuffer();
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void releaseBuffer() {
+        inMemoryBytes.addAndGet(-buffer.length);
+        buffer = new byte[0];
+        count = 0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.arcadex.api.game.service;
+
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Where uploaded objects are kept. Exactly one backend is active, chosen with
+ * {@code storage.backend}: {@code sidecar} (the default) for the bucket behind the object storage
+ * sidecar, or {@code local} for a directory on this node. Callers go through
+ * {@link ObjectStorageService}.
+ */
+public interface StorageBackend {
+
+    /**
+     * Stores {@code contentLength} bytes read from {@code source}, replacing any existing object.
+     * The source may be opened more than once if the write has to be retried.
+     */
+    void upload(String objectName, InputStreamSource source, long contentLength, String contentType)
+            throws IOException, InterruptedException;
+
+    default void upload(String objectName, byte[] content, String contentType)
+            throws IOException, InterruptedException {
+        upload(objectName, () -> new ByteArrayInputStream(content), content.length, contentType);
+    }
+
+    /**
+     * Opens a download. A {@code rangeHeader} (e.g. {@code bytes=0-1023}) asks for only those bytes,
+     * but a backend may return the whole object instead; check {@link ObjectDownload#isPartial()}.
+     *
+     * @throws ObjectRangeNotSatisfiableException if the range lies outside the object
+     */
+    ObjectDownload openDownload(String objectName, String rangeHeader) throws IOException, InterruptedException;
+
+    /**
+     * Deletes an object. Deleting an object that does not exist is not an error.
+     */
+    void delete(String objectName) throws IOException, InterruptedException;
+
+    /**
+     * @param ttlSec how long the returned URL must stay valid for at least
+     * @return a URL clients can fetch the object from directly, or null if this backend has none,
+     * in which case the object must be proxied
+     */
+    default String getSignedDownloadUrl(String objectName, int ttlSec) throws IOException, InterruptedException {
+        return null;
+    }
+
+    /**
+     * Prepares whatever per-object credentials the upcoming transfers of {@code objectNames} need,
+     * so they do not have to fetch them one by one. This is only a head start: every transfer must
+     * still work for an object that was not, or could not be, prepared.
+     */
+    default void presign(Collection<String> objectNames, String method) throws IOException, InterruptedException {
+    }
+}
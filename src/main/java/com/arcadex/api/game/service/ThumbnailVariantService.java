@@ -0,0 +1,309 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.entity.GameAsset;
+import com.arcadex.api.game.repository.GameAssetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates downscaled variants of uploaded thumbnails for catalog grids and picks the variant
+ * that best fits a requested width. Variants are rendered in the background after the game is
+ * saved, so the upload response never waits for image work; until they exist, the original is
+ * served. Each variant is stored next to its original as {@code thumbnails/{id}-{width}.jpg}
+ * ({@code .png} when the original has transparency) and recorded as an asset of the game.
+ */
+@Service
+public class ThumbnailVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailVariantService.class);
+
+    public static final String PREFIX = "thumbnails/";
+
+    private static final String[] VARIANT_EXTENSIONS = {".jpg", ".png"};
+    private static final float JPEG_QUALITY = 0.8f;
+    // decoded images take 4 bytes per pixel, so this caps a single decode at about 160MB of heap
+    private static final long MAX_SOURCE_PIXELS = 40_000_000L;
+
+    private final ObjectStorageService objectStorageService;
+    private final GameAssetRepository gameAssetRepository;
+    private final AssetMetadataService assetMetadataService;
+    private final boolean enabled;
+    private final int[] widths;
+    private final ExecutorService executor;
+
+    private final Timer renderTimer;
+    private final Counter variantsStored;
+    private final Counter failures;
+
+    public ThumbnailVariantService(ObjectStorageService objectStorageService,
+                                   GameAssetRepository gameAssetRepository,
+                                   AssetMetadataService assetMetadataService,
+                                   @Value("${game.thumbnails.variants.enabled:true}") boolean enabled,
+                                   @Value("${game.thumbnails.variants.widths:160,320,640}") int[] widths,
+                                   @Value("${game.thumbnails.variants.concurrency:2}") int concurrency,
+                                   MeterRegistry meterRegistry) {
+        this.objectStorageService = objectStorageService;
+        this.gameAssetRepository = gameAssetRepository;
+        this.assetMetadataService = assetMetadataService;
+        this.enabled = enabled;
+        this.widths = Arrays.stream(widths).filter(width -> width > 0).sorted().distinct().toArray();
+        this.executor = Executors.newFixedThreadPool(concurrency, Thread.ofPlatform().name("thumbnail-variants-", 0).factory());
+
+        this.renderTimer = Timer.builder("game.thumbnails.variants.render")
+                .description("Time to decode, scale and encode all variants of one thumbnail")
+                .register(meterRegistry);
+        this.variantsStored = Counter.builder("game.thumbnails.variants.stored").register(meterRegistry);
+        this.failures = Counter.builder("game.thumbnails.variants.failures").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues variant generation for a thumbnail that was just stored as {@code objectName}. The
+     * source file is copied first, so the caller may delete it as soon as this returns. Failures
+     * are logged and leave the game with only its original thumbnail.
+     */
+    public void generateAsync(String gameId, String objectName, Path source) {
+        if (!enabled || widths.length == 0) {
+            return;
+        }
+
+        Path copy;
+        try {
+            copy = Files.createTempFile("arcadex-thumbnail-variants-", ".tmp");
+            Files.copy(source, copy, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Failed to queue thumbnail variants for {}", objectName, e);
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(gameId, objectName, copy);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    failures.increment();
+                    log.warn("Failed to generate thumbnail variants for {}", objectName, e);
+                } finally {
+                    deleteQuietly(copy);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            deleteQuietly(copy);
+            log.warn("Thumbnail variants for {} were not queued: {}", objectName, e.getMessage());
+        }
+    }
+
+    /**
+     * Picks the smallest stored variant at least {@code width} pixels wide, falling back to the
+     * original when none is wide enough or the variants have not been generated yet.
+     */
+    public String select(String objectName, int width) {
+        String base = baseName(objectName);
+        for (int candidate : widths) {
+            if (candidate < width) {
+                continue;
+            }
+            for (String extension : VARIANT_EXTENSIONS) {
+                String variant = base + "-" + candidate + extension;
+                if (assetMetadataService.find(variant).isPresent()) {
+                    return variant;
+                }
+            }
+        }
+        return objectName;
+    }
+
+    private void generate(String gameId, String objectName, Path source) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        List<Variant> variants = render(source, Files.size(source), widths);
+        renderTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        String base = baseName(objectName);
+        for (Variant variant : variants) {
+            String variantName = base + "-" + variant.width() + variant.extension();
+            objectStorageService.uploadFile(variantName, variant.content(), variant.contentType());
+            gameAssetRepository.save(new GameAsset(gameId, variantName, ContentHash.of(variant.content()),
+                    variant.content().length, variant.contentType()));
+            // the lookup may have been cached as absent while the variant was being rendered
+            assetMetadataService.invalidate(variantName);
+            variantsStored.increment();
+        }
+        log.info("Stored {} thumbnail variants for {}", variants.size(), objectName);
+    }
+
+    /**
+     * Renders one variant per width narrower than the source image. Variants that would not be
+     * smaller than the source file are dropped, since serving the original is then cheaper.
+     * Formats without an ImageIO reader and animated images yield no variants.
+     */
+    static List<Variant> render(Path source, long sourceSize, int[] widths) throws IOException {
+        BufferedImage image = decode(source);
+        if (image == null) {
+            return List.of();
+        }
+
+        boolean transparent = hasTransparency(image);
+        List<Variant> variants = new ArrayList<>();
+        for (int width : widths) {
+            if (width >= image.getWidth()) {
+                break;
+            }
+            int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+            BufferedImage scaled = scale(image, width, height, transparent);
+            Variant variant = transparent
+                    ? new Variant(width, encodePng(scaled), ".png", "image/png")
+                    : new Variant(width, encodeJpeg(scaled), ".jpg", "image/jpeg");
+            if (variant.content().length < sourceSize) {
+                variants.add(variant);
+            }
+        }
+        return variants;
+    }
+
+    private static BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input);
+                // Dimensions come from the header, so oversized images are refused before decoding.
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > MAX_SOURCE_PIXELS || reader.getNumImages(true) > 1) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static boolean hasTransparency(BufferedImage image) {
+        ColorModel model = image.getColorModel();
+        if (!model.hasAlpha()) {
+            return false;
+        }
+        WritableRaster alpha = image.getAlphaRaster();
+        if (alpha == null) {
+            // palette images keep transparency in the palette; assume it is used
+            return true;
+        }
+        int max = (1 << model.getComponentSize(model.getNumComponents() - 1)) - 1;
+        int[] row = new int[alpha.getWidth()];
+        for (int y = 0; y < alpha.getHeight(); y++) {
+            alpha.getSamples(0, y, alpha.getWidth(), 1, 0, row);
+            for (int sample : row) {
+                if (sample < max) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scales down in steps of at most half, which keeps bilinear filtering from skipping source
+     * pixels and aliasing.
+     */
+    private static BufferedImage scale(BufferedImage source, int width, int height, boolean transparent) {
+        int type = transparent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static String baseName(String objectName) {
+        int dot = objectName.lastIndexOf('.');
+        return dot > objectName.lastIndexOf('/') ? objectName.substring(0, dot) : objectName;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", file, e);
+        }
+    }
+
+    record Variant(int width, byte[] content, String extension, String contentType) {}
+}
@@ -0,0 +1,87 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.entity.Game;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An upload running in the background, as reported by the job status endpoint.
+ */
+public class UploadJob implements UploadProgress {
+
+    public enum Stage { QUEUED, SCANNING, UPLOADING, SAVING, COMPLETED, FAILED }
+
+    private final String id;
+    private final Instant createdAt = Instant.now();
+    private volatile Instant updatedAt = createdAt;
+    private volatile Stage stage = Stage.QUEUED;
+    private volatile int entriesTotal;
+    private final AtomicInteger entriesDone = new AtomicInteger();
+    private volatile long bytesTotal;
+    private final AtomicLong bytesDone = new AtomicLong();
+    private volatile Game game;
+    private volatile String error;
+
+    public UploadJob(String id) {
+        this.id = id;
+    }
+
+    public String getId() { return id; }
+
+    public Stage getStage() { return stage; }
+
+    public int getEntriesTotal() { return entriesTotal; }
+
+    public int getEntriesDone() { return entriesDone.get(); }
+
+    public long getBytesTotal() { return bytesTotal; }
+
+    public long getBytesDone() { return bytesDone.get(); }
+
+    /**
+     * @return the saved game once the job has completed, otherwise null
+     */
+    public Game getGame() { return game; }
+
+    public String getError() { return error; }
+
+    public Instant getCreatedAt() { return createdAt; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+
+    public boolean isFinished() {
+        return stage == Stage.COMPLETED || stage == Stage.FAILED;
+    }
+
+    @Override
+    public void stage(Stage stage) {
+        this.stage = stage;
+        this.updatedAt = Instant.now();
+    }
+
+    @Override
+    public void scanned(int entries, long bytes) {
+        this.entriesTotal = entries;
+        this.bytesTotal = bytes;
+        this.updatedAt = Instant.now();
+    }
+
+    @Override
+    public void entryDone(long bytes) {
+        entriesDone.incrementAndGet();
+        bytesDone.addAndGet(bytes);
+        this.updatedAt = Instant.now();
+    }
+
+    void complete(Game game) {
+        this.game = game;
+        stage(Stage.COMPLETED);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        stage(Stage.FAILED);
+    }
+}
@@ -0,0 +1,122 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.entity.Game;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs spooled game uploads in the background so the request that carried them can return
+ * right away. At most {@code game.upload.jobs.concurrency} games are extracted at once; up to
+ * {@code game.upload.jobs.queue-capacity} more wait in {@link UploadJob.Stage#QUEUED}, each
+ * holding its spooled archive on disk, and further uploads are turned away. Jobs live in memory
+ * only and are forgotten some time after they finish.
+ */
+@Service
+public class UploadJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadJobService.class);
+
+    private final GameUploadService gameUploadService;
+    private final ExecutorService executor;
+    private final Duration retention;
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+
+    public UploadJobService(GameUploadService gameUploadService,
+                            @Value("${game.upload.jobs.concurrency:2}") int concurrency,
+                            @Value("${game.upload.jobs.queue-capacity:10}") int queueCapacity,
+                            @Value("${game.upload.jobs.retention-minutes:60}") long retentionMinutes,
+                            MeterRegistry meterRegistry) {
+        this.gameUploadService = gameUploadService;
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofPlatform().name("game-upload-", 0).factory());
+        this.retention = Duration.ofMinutes(retentionMinutes);
+
+        Gauge.builder("game.upload.jobs.active", this, UploadJobService::countActive)
+                .description("Upload jobs that are queued or running")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues a spooled upload. The job takes ownership of the request's temp files; if it cannot
+     * be queued, the request is discarded.
+     *
+     * @throws IllegalStateException if the queue is full
+     */
+    public UploadJob submit(GameUploadRequest request) {
+        purgeFinished();
+
+        UploadJob job = new UploadJob(UUID.randomUUID().toString());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, request));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            discardQuietly(request, job);
+            throw new IllegalStateException("Too many uploads are in progress. Please try again later.", e);
+        }
+        log.info("Queued upload job {} for game: {}", job.getId(), request.title());
+        return job;
+    }
+
+    public Optional<UploadJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(UploadJob job, GameUploadRequest request) {
+        try {
+            Game game = gameUploadService.uploadGame(request, job);
+            job.complete(game);
+        } catch (InvalidGameArchiveException e) {
+            log.warn("Upload job {} rejected the game archive: {}", job.getId(), e.getMessage());
+            job.fail(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Upload was interrupted");
+        } catch (Exception e) {
+            log.error("Upload job {} failed", job.getId(), e);
+            job.fail("Failed to upload game. Please try again.");
+        } finally {
+            discardQuietly(request, job);
+        }
+    }
+
+    private static void discardQuietly(GameUploadRequest request, UploadJob job) {
+        try {
+            request.discard();
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled files of upload job {}", job.getId(), e);
+        }
+    }
+
+    private void purgeFinished() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getUpdatedAt().isBefore(cutoff));
+    }
+
+    private double countActive() {
+        return jobs.values().stream().filter(job -> !job.isFinished()).count();
+    }
+}
@@ -0,0 +1,19 @@
+package com.arcadex.api.game.service;
+
+/**
+ * Receives progress callbacks from {@link GameUploadService}. Callbacks for individual entries
+ * may arrive concurrently from the upload threads.
+ */
+public interface UploadProgress {
+
+    UploadProgress NONE = new UploadProgress() {};
+
+    default void stage(UploadJob.Stage stage) {}
+
+    /**
+     * Called once the archive has been scanned, with the number of entries and bytes to upload.
+     */
+    default void scanned(int entries, long bytes) {}
+
+    default void entryDone(long bytes) {}
+}
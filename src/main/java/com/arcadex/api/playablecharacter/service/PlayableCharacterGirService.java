@@ -1,5 +1,6 @@
 package com.arcadex.api.playablecharacter.service;
 
+import com.arcadex.api.config.http.OutboundHttpClient;
 import com.arcadex.api.playablecharacter.dto.GirProgramDto;
 import com.arcadex.api.playablecharacter.dto.PlayableCharacterGirGenerateRequest;
 import com.arcadex.api.playablecharacter.dto.PlayableCharacterGirGenerateResponse;
@@ -14,7 +15,6 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.ArrayList;
@@ -25,10 +25,9 @@ public class PlayableCharacterGirService {
 
     private static final Logger log = LoggerFactory.getLogger(PlayableCharacterGirService.class);
     private static final Gson gson = new Gson();
+    private static final String LLM_DESTINATION = "openai";
 
-    private final HttpClient httpClient = HttpClient.newBuilder()
-            .version(HttpClient.Version.HTTP_1_1)
-            .build();
+    private final OutboundHttpClient httpClient;
 
     private final GirValidationService girValidationService;
     private static final int MAX_SELF_REPAIR_ATTEMPTS = 1;
@@ -39,8 +38,9 @@ public class PlayableCharacterGirService {
     @Value("${ai.openai.api-key}")
     private String apiKey;
 
-    public PlayableCharacterGirService(GirValidationService girValidationService) {
+    public PlayableCharacterGirService(GirValidationService girValidationService, OutboundHttpClient httpClient) {
         this.girValidationService = girValidationService;
+        this.httpClient = httpClient;
     }
 
     public PlayableCharacterGirGenerateResponse generate(PlayableCharacterGirGenerateRequest request) throws IOException, InterruptedException {
@@ -188,7 +188,7 @@ public class PlayableCharacterGirService {
                 .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(requestBody)))
                 .build();
 
-        HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = httpClient.send(LLM_DESTINATION, httpRequest, HttpResponse.BodyHandlers.ofString());
         if (response.statusCode() != 200) {
             log.error("LLM API returned status {}: {}", response.statusCode(), response.body());
             throw new IOException("LLM API returned status " + response.statusCode());
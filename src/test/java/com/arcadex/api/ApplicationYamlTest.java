@@ -0,0 +1,35 @@
+package com.arcadex.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Loads application.yaml the way Boot does at startup, so a file that does not parse, or settings
+ * moved away from the keys the code reads, fail here rather than when the app is deployed. Unlike
+ * {@link ArcadexApiApplicationTests} this needs no database.
+ */
+class ApplicationYamlTest {
+
+    @Test
+    void applicationYaml_shouldParseAndKeepTheKeysTheCodeReads() throws IOException {
+        List<PropertySource<?>> sources = new YamlPropertySourceLoader()
+                .load("application.yaml", new ClassPathResource("application.yaml"));
+
+        assertThat(sources).hasSize(1);
+        PropertySource<?> yaml = sources.get(0);
+        assertThat(yaml.getProperty("http.client.destinations.object-storage.read-timeout-ms")).hasToString("300000");
+        assertThat(yaml.getProperty("http.client.destinations.object-storage-download.max-concurrent")).hasToString("256");
+        assertThat(yaml.getProperty("http.server.request-deadline-ms")).hasToString("0");
+        assertThat(yaml.getProperty("cache.redis.enabled")).hasToString("false");
+        assertThat(yaml.getProperty("cache.redis.retry-after-seconds")).hasToString("30");
+        assertThat(yaml.getProperty("storage.backend")).hasToString("sidecar");
+        assertThat(yaml.getProperty("game.cache.fresh-seconds")).hasToString("10");
+    }
+}
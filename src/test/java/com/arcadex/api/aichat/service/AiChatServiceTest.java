@@ -1,5 +1,6 @@
 package com.arcadex.api.aichat.service;
 
+import com.arcadex.api.config.http.OutboundHttpClient;
 import com.arcadex.api.playablecharacter.service.PlayableCharacterGirService;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -14,7 +15,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 class AiChatServiceTest {
 
     private final PlayableCharacterGirService playableCharacterGirService = Mockito.mock(PlayableCharacterGirService.class);
-    private final AiChatService aiChatService = new AiChatService(playableCharacterGirService);
+    private final AiChatService aiChatService = new AiChatService(playableCharacterGirService, Mockito.mock(OutboundHttpClient.class));
 
     @Test
     void intentClassifierShouldRouteWhenMovementWithHighConfidence() {
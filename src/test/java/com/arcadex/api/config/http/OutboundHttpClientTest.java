@@ -0,0 +1,105 @@
+package com.arcadex.api.config.http;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OutboundHttpClientTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpServer server;
+    private OutboundHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("http.client.destinations.test.max-concurrent", "1")
+                .withProperty("http.client.destinations.test.read-timeout-ms", "500")
+                .withProperty("http.client.destinations.slow.max-concurrent", "1")
+                .withProperty("http.client.destinations.slow.read-timeout-ms", "30000")
+                .withProperty("http.client.destinations.slow.acquire-timeout-ms", "50");
+        client = new OutboundHttpClient(environment, meterRegistry, 1000, 30000, 1000, 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void send_shouldHoldTheSlotUntilAStreamedBodyIsClosed() throws Exception {
+        HttpResponse<InputStream> first = client.send("test", request(), HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(meterRegistry.get("http.client.in-flight").tag("destination", "test").gauge().value()).isEqualTo(1);
+
+        // the only slot is taken, so the next call times out waiting for it
+        assertThatThrownBy(() -> client.send("test", request(), HttpResponse.BodyHandlers.ofString()))
+                .isInstanceOf(HttpTimeoutException.class);
+
+        first.body().close();
+        HttpResponse<String> second = client.send("test", request(), HttpResponse.BodyHandlers.ofString());
+
+        assertThat(second.body()).isEqualTo("ok");
+        assertThat(meterRegistry.get("http.client.requests").tag("destination", "test").tag("outcome", "200")
+                .timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void send_shouldWaitForASlotNoLongerThanTheAcquireTimeout() throws Exception {
+        HttpResponse<InputStream> first = client.send("slow", request(), HttpResponse.BodyHandlers.ofInputStream());
+        try {
+            long started = System.nanoTime();
+            assertThatThrownBy(() -> client.send("slow", request(), HttpResponse.BodyHandlers.ofString()))
+                    .isInstanceOf(HttpTimeoutException.class)
+                    .hasMessageContaining("slot");
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(5));
+
+            // other destinations are not held up by it
+            assertThat(client.send("test", request(), HttpResponse.BodyHandlers.ofString()).body()).isEqualTo("ok");
+        } finally {
+            first.body().close();
+        }
+    }
+
+    @Test
+    void send_shouldFailFastOnceTheRequestDeadlineHasPassed() {
+        RequestDeadline.set(Instant.now().minusSeconds(1));
+
+        assertThatThrownBy(() -> client.send("test", request(), HttpResponse.BodyHandlers.ofString()))
+                .isInstanceOf(HttpTimeoutException.class)
+                .hasMessageContaining("deadline");
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/")).build();
+    }
+}
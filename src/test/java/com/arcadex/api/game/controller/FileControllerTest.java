@@ -0,0 +1,336 @@
+package com.arcadex.api.game.controller;
+
+import com.arcadex.api.game.entity.GameAsset;
+import com.arcadex.api.game.service.AssetBlobService;
+import com.arcadex.api.game.service.AssetMemoryCache;
+import com.arcadex.api.game.service.AssetMetadataService;
+import com.arcadex.api.game.service.BundleIndexCache;
+import com.arcadex.api.game.service.DiskAssetCache;
+import com.arcadex.api.game.service.FileServingPolicy;
+import com.arcadex.api.game.service.GameSuggestionIndex;
+import com.arcadex.api.game.service.GameUploadService;
+import com.arcadex.api.game.service.LocalStorageBackend;
+import com.arcadex.api.game.service.ObjectStorageService;
+import com.arcadex.api.game.service.ThumbnailVariantService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileControllerTest {
+
+    private static final String GAME = "games/0f1e2d3c-4b5a-6978-8a9b-0c1d2e3f4a5b/";
+    private static final String PATH = GAME + "level.bin";
+    private static final String SCRIPT = GAME + "app.js";
+    private static final String HASH = "9a".repeat(32);
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] GZIPPED = "gzipped".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path root;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AssetMetadataService assetMetadataService = mock(AssetMetadataService.class);
+
+    private ObjectStorageService objectStorageService;
+    private FileController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        objectStorageService = new ObjectStorageService(new LocalStorageBackend(root.resolve("storage").toString()));
+        DiskAssetCache diskAssetCache = new DiskAssetCache(objectStorageService, false,
+                root.resolve("cache").toString(), 0, 0, meterRegistry);
+        controller = new FileController(objectStorageService, diskAssetCache, mock(AssetMemoryCache.class),
+                assetMetadataService, new FileServingPolicy(false, 1048576, "", 900, meterRegistry),
+                mock(BundleIndexCache.class), mock(ThumbnailVariantService.class), mock(GameSuggestionIndex.class));
+        when(assetMetadataService.find(anyString())).thenReturn(Optional.empty());
+
+        objectStorageService.uploadFile(PATH, CONTENT, "application/octet-stream");
+    }
+
+    @Test
+    void serveFile_shouldServeTheFirstByteForAOneByteRange() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(get(PATH, "bytes=0-0"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 0-0/10");
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(1);
+        assertThat(body(response)).isEqualTo("0");
+    }
+
+    @Test
+    void serveFile_shouldServeTheTailForASuffixRange() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(get(PATH, "bytes=-3"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 7-9/10");
+        assertThat(body(response)).isEqualTo("789");
+    }
+
+    @Test
+    void serveFile_shouldAnswer416ForARangePastTheEnd() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(get(PATH, "bytes=20-30"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+    }
+
+    @Test
+    void serveFile_shouldServeMultipleRangesAsMultipartByteranges() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(get(PATH, "bytes=0-1,4-5"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        MediaType contentType = response.getHeaders().getContentType();
+        assertThat(contentType.isCompatibleWith(MediaType.parseMediaType("multipart/byteranges"))).isTrue();
+        String boundary = contentType.getParameter("boundary");
+        String body = body(response);
+        assertThat(body).contains("--" + boundary + "\r\nContent-Type: application/octet-stream\r\n"
+                + "Content-Range: bytes 0-1/10\r\n\r\n01\r\n");
+        assertThat(body).contains("Content-Range: bytes 4-5/10\r\n\r\n45\r\n");
+        assertThat(body).endsWith("--" + boundary + "--\r\n");
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(body.length());
+    }
+
+    @Test
+    void serveFile_shouldSkipUnsatisfiableRangesAmongSatisfiableOnes() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(get(PATH, "bytes=2-3,50-60"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-3/10");
+        assertThat(body(response)).isEqualTo("23");
+    }
+
+    @Test
+    void serveFile_shouldAnswer416WhenNoneOfSeveralRangesIsSatisfiable() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(get(PATH, "bytes=20-30,40-50"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+    }
+
+    @Test
+    void serveFile_shouldServeTheWholeBodyWhenIfRangeDoesNotMatch() throws Exception {
+        MockHttpServletRequest request = get(PATH, "bytes=0-0");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isNull();
+        assertThat(body(response)).isEqualTo("0123456789");
+    }
+
+    @Test
+    void serveFile_shouldHonourTheRangeWhenIfRangeMatches() throws Exception {
+        ResponseEntity<StreamingResponseBody> full = controller.serveFile(get(PATH, null));
+        body(full);
+        String eTag = full.getHeaders().getETag();
+        MockHttpServletRequest request = get(PATH, "bytes=0-0");
+        request.addHeader(HttpHeaders.IF_RANGE, eTag);
+
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(body(response)).isEqualTo("0");
+    }
+
+    @Test
+    void serveFile_shouldIgnoreAMalformedRangeHeader() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(get(PATH, "bytes=abc"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(body(response)).isEqualTo("0123456789");
+    }
+
+    @Test
+    void serveFile_shouldAnswer304FromMetadataWhenTheETagMatches() throws Exception {
+        storeAsset(SCRIPT, false);
+        MockHttpServletRequest request = get(SCRIPT, null);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\"");
+        objectStorageService.deleteFile(AssetBlobService.BLOB_PREFIX + HASH);
+
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + HASH + "\"");
+        assertThat(response.getBody()).isNull();
+        assertThat(meterRegistry.get("files.served.requests").tag("mode", "not-modified").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void serveFile_shouldMatchWeakAndListedETagsForIfNoneMatch() throws Exception {
+        storeAsset(SCRIPT, false);
+
+        for (String ifNoneMatch : new String[]{"W/\"" + HASH + "\"", "\"other\", \"" + HASH + "\"", "*"}) {
+            MockHttpServletRequest request = get(SCRIPT, null);
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+
+            assertThat(controller.serveFile(request).getStatusCode()).as(ifNoneMatch).isEqualTo(HttpStatus.NOT_MODIFIED);
+        }
+    }
+
+    @Test
+    void serveFile_shouldServeTheBodyWhenTheETagDoesNotMatch() throws Exception {
+        storeAsset(SCRIPT, false);
+        MockHttpServletRequest request = get(SCRIPT, null);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + HASH + "\"");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED)).isNotNull();
+        assertThat(body(response)).isEqualTo("0123456789");
+    }
+
+    @Test
+    void serveFile_shouldAnswer304WhenNotModifiedSinceLastModified() throws Exception {
+        storeAsset(SCRIPT, false);
+        ResponseEntity<StreamingResponseBody> full = controller.serveFile(get(SCRIPT, null));
+        body(full);
+        String lastModified = full.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+
+        MockHttpServletRequest request = get(SCRIPT, null);
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        assertThat(controller.serveFile(request).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        // If-None-Match takes precedence
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(request);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        body(response);
+    }
+
+    @Test
+    void serveFile_shouldGiveTheGzipVariantItsOwnETag() throws Exception {
+        storeAsset(SCRIPT, true);
+        MockHttpServletRequest request = get(SCRIPT, null);
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\"");
+
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + HASH + "-gzip\"");
+        assertThat(body(response)).isEqualTo("gzipped");
+
+        MockHttpServletRequest identity = get(SCRIPT, null);
+        identity.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "-gzip\"");
+        ResponseEntity<StreamingResponseBody> identityResponse = controller.serveFile(identity);
+        assertThat(identityResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(body(identityResponse)).isEqualTo("0123456789");
+    }
+
+    @Test
+    void serveFile_shouldServeTheGzipVariantWhenItIsAccepted() throws Exception {
+        storeAsset(SCRIPT, true);
+        MockHttpServletRequest request = get(SCRIPT, null);
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip");
+
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(request);
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(GZIPPED.length);
+        assertThat(body(response)).isEqualTo("gzipped");
+    }
+
+    @Test
+    void serveFile_shouldNegotiateGzipByQualityAndWildcard() throws Exception {
+        storeAsset(SCRIPT, true);
+        Map<String, Boolean> gzipExpected = Map.of(
+                "gzip;q=0", false,
+                "gzip; q=0.0, deflate", false,
+                "*", true,
+                "br, *;q=0", false,
+                "*;q=0, gzip;q=0.5", true,
+                "GZIP", true,
+                "identity", false);
+
+        gzipExpected.forEach((acceptEncoding, gzip) -> {
+            MockHttpServletRequest request = get(SCRIPT, null);
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+            ResponseEntity<StreamingResponseBody> response = controller.serveFile(request);
+
+            assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+                    .as(acceptEncoding).isEqualTo(gzip ? "gzip" : null);
+            assertThat(response.getHeaders().getVary()).as(acceptEncoding).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+        });
+    }
+
+    @Test
+    void serveFile_shouldServeRangesFromTheIdentityRepresentation() throws Exception {
+        storeAsset(SCRIPT, true);
+        MockHttpServletRequest request = get(SCRIPT, "bytes=0-1");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 0-1/10");
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + HASH + "\"");
+        assertThat(response.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(body(response)).isEqualTo("01");
+    }
+
+    @Test
+    void serveFile_shouldNotVaryOnEncodingWithoutAGzipVariant() throws Exception {
+        storeAsset(SCRIPT, false);
+        MockHttpServletRequest request = get(SCRIPT, null);
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        ResponseEntity<StreamingResponseBody> response = controller.serveFile(request);
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeaders().getVary()).isEmpty();
+        assertThat(body(response)).isEqualTo("0123456789");
+    }
+
+    private void storeAsset(String path, boolean withGzipVariant) throws Exception {
+        GameAsset asset = new GameAsset("0f1e2d3c-4b5a-6978-8a9b-0c1d2e3f4a5b", path, HASH, CONTENT.length,
+                "application/javascript");
+        asset.setStorageObjectName(AssetBlobService.BLOB_PREFIX + HASH);
+        asset.setCreatedAt(LocalDateTime.of(2026, 3, 1, 12, 0));
+        objectStorageService.uploadFile(AssetBlobService.BLOB_PREFIX + HASH, CONTENT, "application/javascript");
+        if (withGzipVariant) {
+            asset.setGzipSize((long) GZIPPED.length);
+            objectStorageService.uploadFile(AssetBlobService.BLOB_PREFIX + HASH + GameUploadService.GZIP_SUFFIX,
+                    GZIPPED, "application/javascript");
+        }
+        when(assetMetadataService.find(path)).thenReturn(Optional.of(asset));
+    }
+
+    private static MockHttpServletRequest get(String path, String range) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files/" + path);
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        return request;
+    }
+
+    private static String body(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.ISO_8859_1);
+    }
+}
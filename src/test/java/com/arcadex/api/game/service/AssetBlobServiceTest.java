@@ -0,0 +1,134 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.entity.AssetBlob;
+import com.arcadex.api.game.entity.GameAsset;
+import com.arcadex.api.game.repository.AssetBlobRepository;
+import com.arcadex.api.game.repository.GameAssetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AssetBlobServiceTest {
+
+    private final AssetBlobRepository assetBlobRepository = Mockito.mock(AssetBlobRepository.class);
+    private final GameAssetRepository gameAssetRepository = Mockito.mock(GameAssetRepository.class);
+    private final ObjectStorageService objectStorageService = Mockito.mock(ObjectStorageService.class);
+    private final TransactionTemplate transactionTemplate = Mockito.mock(TransactionTemplate.class);
+    private final AssetBlobService blobs = new AssetBlobService(assetBlobRepository, gameAssetRepository,
+            objectStorageService, transactionTemplate, 60);
+
+    @BeforeEach
+    void runTransactionsInline() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void addReferences_shouldAddOneReferencePerBlobBackedAsset() {
+        when(assetBlobRepository.adjustReferences(anyString(), anyInt())).thenReturn(1);
+
+        blobs.addReferences(List.of(
+                blobAsset("games/g/a.js", "aaa", null),
+                blobAsset("games/g/lib/a.js", "aaa", null),
+                blobAsset("games/g/b.png", "bbb", null),
+                new GameAsset("g", "thumbnails/g.png", "ccc", 10, "image/png")));
+
+        verify(assetBlobRepository).adjustReferences("aaa", 2);
+        verify(assetBlobRepository).adjustReferences("bbb", 1);
+        verify(assetBlobRepository, never()).adjustReferences(Mockito.eq("ccc"), anyInt());
+    }
+
+    @Test
+    void addReferences_shouldFailForUnregisteredBlob() {
+        when(assetBlobRepository.adjustReferences("aaa", 1)).thenReturn(0);
+
+        assertThatThrownBy(() -> blobs.addReferences(List.of(blobAsset("games/g/a.js", "aaa", null))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void releaseGame_shouldDeleteOwnObjectsAndOnlyBlobsNoOtherGameReferences() throws Exception {
+        List<GameAsset> assets = List.of(
+                new GameAsset("g", "thumbnails/g.png", "ccc", 10, "image/png"),
+                blobAsset("games/g/a.js", "aaa", 40L),
+                blobAsset("games/g/b.png", "bbb", null));
+        when(gameAssetRepository.findByGameUuid("g")).thenReturn(assets);
+        when(assetBlobRepository.findById("aaa")).thenReturn(Optional.of(new AssetBlob("aaa", 100, 40L, 0)));
+        when(assetBlobRepository.findById("bbb")).thenReturn(Optional.of(new AssetBlob("bbb", 100, null, 1)));
+        when(assetBlobRepository.deleteIfUnreferenced("aaa")).thenReturn(1);
+        when(assetBlobRepository.deleteIfUnreferenced("bbb")).thenReturn(0);
+
+        blobs.releaseGame("g");
+
+        verify(assetBlobRepository).adjustReferences("aaa", -1);
+        verify(assetBlobRepository).adjustReferences("bbb", -1);
+        verify(gameAssetRepository).deleteAll(assets);
+        verify(objectStorageService).deleteFile("thumbnails/g.png");
+        verify(objectStorageService).deleteFile("blobs/aaa");
+        verify(objectStorageService).deleteFile("blobs/aaa.gz");
+        verify(objectStorageService, never()).deleteFile("blobs/bbb");
+    }
+
+    @Test
+    void dropUnreferenced_shouldKeepBlobsAnotherUploadHasReferenced() {
+        when(assetBlobRepository.findById("aaa")).thenReturn(Optional.of(new AssetBlob("aaa", 100, 40L, 0)));
+        when(assetBlobRepository.findById("bbb")).thenReturn(Optional.of(new AssetBlob("bbb", 100, null, 1)));
+        when(assetBlobRepository.findById("ccc")).thenReturn(Optional.empty());
+        when(assetBlobRepository.deleteIfUnreferenced("aaa")).thenReturn(1);
+        when(assetBlobRepository.deleteIfUnreferenced("bbb")).thenReturn(0);
+
+        List<String> objectNames = blobs.dropUnreferenced(List.of("aaa", "bbb", "ccc"));
+
+        assertThat(objectNames).containsExactly("blobs/aaa", "blobs/aaa.gz", "blobs/ccc", "blobs/ccc.gz");
+    }
+
+    @Test
+    void sweepUnreferenced_shouldDeleteBlobsPastTheGracePeriodThatAreStillUnreferenced() throws Exception {
+        ArgumentCaptor<LocalDateTime> createdBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(assetBlobRepository.findUnreferencedCreatedBefore(createdBefore.capture(), any())).thenReturn(List.of(
+                new AssetBlob("aaa", 100, 40L, 0),
+                new AssetBlob("bbb", 100, null, 0),
+                new AssetBlob("ccc", 100, null, 0)));
+        when(assetBlobRepository.deleteIfUnreferenced("aaa")).thenReturn(1);
+        // referenced by an upload after the candidates were listed
+        when(assetBlobRepository.deleteIfUnreferenced("bbb")).thenReturn(0);
+        when(assetBlobRepository.deleteIfUnreferenced("ccc")).thenReturn(1);
+        doThrow(new IOException("storage is down")).when(objectStorageService).deleteFile("blobs/aaa.gz");
+
+        int swept = blobs.sweepUnreferenced();
+
+        assertThat(swept).isEqualTo(2);
+        assertThat(createdBefore.getValue()).isCloseTo(LocalDateTime.now().minusMinutes(60),
+                within(5, ChronoUnit.SECONDS));
+        verify(objectStorageService).deleteFile("blobs/aaa");
+        verify(objectStorageService).deleteFile("blobs/ccc");
+        verify(objectStorageService, never()).deleteFile("blobs/bbb");
+    }
+
+    private static GameAsset blobAsset(String objectName, String contentHash, Long gzipSize) {
+        GameAsset asset = new GameAsset("g", objectName, contentHash, 100, "application/octet-stream");
+        asset.setStorageObjectName(AssetBlobService.objectNameOf(contentHash));
+        asset.setGzipSize(gzipSize);
+        return asset;
+    }
+}
@@ -0,0 +1,88 @@
+package com.arcadex.api.game.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AssetMemoryCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void put_shouldBoundTheCacheByBytesRatherThanEntries() {
+        AssetMemoryCache cache = new AssetMemoryCache(true, 1000, 1000, meterRegistry, Runnable::run);
+
+        for (int i = 0; i < 500; i++) {
+            cache.put("tiny/" + i, bytes(1));
+        }
+        assertThat(cache.getWeightedSize()).isEqualTo(500);
+
+        for (int i = 0; i < 20; i++) {
+            cache.put("large/" + i, bytes(100));
+        }
+        assertThat(cache.getWeightedSize()).isLessThanOrEqualTo(1000);
+    }
+
+    @Test
+    void put_shouldBypassEntriesOverMaxEntryBytes() {
+        AssetMemoryCache cache = new AssetMemoryCache(true, 1000, 100, meterRegistry, Runnable::run);
+
+        cache.put("too-big.js", bytes(101));
+        cache.put("fits.js", bytes(100));
+
+        assertThat(cache.accepts(101)).isFalse();
+        assertThat(cache.get("too-big.js")).isNull();
+        assertThat(cache.get("fits.js")).isNotNull();
+        assertThat(cache.getWeightedSize()).isEqualTo(100);
+    }
+
+    @Test
+    void getOrLoad_shouldReturnButNotKeepOversizedResults() throws Exception {
+        AssetMemoryCache cache = new AssetMemoryCache(true, 1000, 100, meterRegistry, Runnable::run);
+
+        AssetMemoryCache.CachedBytes loaded = cache.getOrLoad("too-big.js", () -> bytes(200));
+
+        assertThat(loaded.content()).hasSize(200);
+        assertThat(cache.get("too-big.js")).isNull();
+    }
+
+    @Test
+    void getOrLoad_shouldShareOneLoadBetweenConcurrentMisses() throws Exception {
+        AssetMemoryCache cache = new AssetMemoryCache(true, 1000, 100, meterRegistry, Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        SingleFlight.Loader<AssetMemoryCache.CachedBytes> loader = () -> {
+            loads.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return bytes(10);
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<AssetMemoryCache.CachedBytes> first = callers.submit(() -> cache.getOrLoad("app.js", loader));
+            Future<AssetMemoryCache.CachedBytes> second = callers.submit(() -> cache.getOrLoad("app.js", loader));
+            while (meterRegistry.get("single-flight.collapsed").tag("name", "memory-cache").counter().count() < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(second.get(5, TimeUnit.SECONDS));
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(cache.getOrLoad("app.js", loader)).isNotNull();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    private static AssetMemoryCache.CachedBytes bytes(int size) {
+        return new AssetMemoryCache.CachedBytes(new byte[size], null, null);
+    }
+}
@@ -0,0 +1,218 @@
+package com.arcadex.api.game.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DiskAssetCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectStorageService objectStorageService = Mockito.mock(ObjectStorageService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void getOrFetch_shouldStoreIdenticalContentOnce() throws Exception {
+        DiskAssetCache cache = cache(100, 100);
+        stub("games/a/engine.js", "0123456789");
+        stub("games/b/engine.js", "0123456789");
+
+        DiskAssetCache.CachedAsset a = cache.getOrFetch("games/a/engine.js");
+        DiskAssetCache.CachedAsset b = cache.getOrFetch("games/b/engine.js");
+
+        assertThat(a.contentHash()).isEqualTo(b.contentHash());
+        assertThat(a.file()).isEqualTo(b.file());
+        assertThat(Files.readString(a.file())).isEqualTo("0123456789");
+        assertThat(cache.getUsedBytes()).isEqualTo(10);
+        assertThat(blobFiles()).isEqualTo(1);
+    }
+
+    @Test
+    void getOrFetch_shouldEvictLeastRecentlyUsedUntilUnderMaxBytes() throws Exception {
+        DiskAssetCache cache = cache(25, 25);
+        stub("a", "aaaaaaaaaa");
+        stub("b", "bbbbbbbbbb");
+        stub("c", "cccccccccc");
+        cache.getOrFetch("a");
+        DiskAssetCache.CachedAsset b = cache.getOrFetch("b");
+        cache.getIfPresent("a");
+
+        cache.getOrFetch("c");
+
+        assertThat(cache.getIfPresent("b")).isNull();
+        assertThat(b.file()).doesNotExist();
+        assertThat(cache.getIfPresent("a")).isNotNull();
+        assertThat(cache.getIfPresent("c")).isNotNull();
+        assertThat(cache.getUsedBytes()).isEqualTo(20);
+        assertThat(meterRegistry.get("files.disk-cache.evictions").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void getOrFetch_shouldKeepSharedBlobUntilItsLastObjectIsEvicted() throws Exception {
+        DiskAssetCache cache = cache(15, 15);
+        stub("a", "0123456789");
+        stub("a-copy", "0123456789");
+        stub("c", "cccccccccc");
+        DiskAssetCache.CachedAsset a = cache.getOrFetch("a");
+        cache.getOrFetch("a-copy");
+
+        cache.getOrFetch("c");
+
+        // dropping "a" alone frees nothing, so "a-copy" goes too before the blob is deleted
+        assertThat(cache.getIfPresent("a")).isNull();
+        assertThat(cache.getIfPresent("a-copy")).isNull();
+        assertThat(a.file()).doesNotExist();
+        assertThat(cache.getIfPresent("c")).isNotNull();
+        assertThat(cache.getUsedBytes()).isEqualTo(10);
+    }
+
+    @Test
+    void getOrFetch_shouldNotCacheObjectsOverMaxObjectBytes() throws Exception {
+        DiskAssetCache cache = cache(100, 5);
+        stub("big.bin", "0123456789");
+
+        assertThat(cache.getOrFetch("big.bin")).isNull();
+        assertThat(cache.getIfPresent("big.bin")).isNull();
+        assertThat(cache.getUsedBytes()).isZero();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void getOrFetch_shouldNotDownloadAnObjectAgainOnceItIsKnownToBeTooLarge() throws Exception {
+        DiskAssetCache cache = cache(100, 5);
+        byte[] body = "0123456789".getBytes(StandardCharsets.UTF_8);
+        when(objectStorageService.openDownload("big.bin"))
+                .thenAnswer(invocation -> new ObjectDownload(new ByteArrayInputStream(body), -1));
+
+        assertThat(cache.getOrFetch("big.bin")).isNull();
+        assertThat(cache.getOrFetch("big.bin")).isNull();
+        cache.prefetch("big.bin");
+
+        verify(objectStorageService, times(1)).openDownload("big.bin");
+    }
+
+    @Test
+    void fillWhileStreaming_shouldCacheTheObjectOnceTheClientHasReadItAll() throws Exception {
+        DiskAssetCache cache = cache(100, 100);
+        byte[] body = "0123456789".getBytes(StandardCharsets.UTF_8);
+        ObjectDownload download = new ObjectDownload(new ByteArrayInputStream(body), body.length, null, "\"v1\"", null);
+
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        try (ObjectDownload filling = cache.fillWhileStreaming("app.js", download)) {
+            assertThat(cache.fillWhileStreaming("app.js", download)).isSameAs(download);
+            filling.transferTo(client);
+        }
+
+        assertThat(client.toByteArray()).isEqualTo(body);
+        DiskAssetCache.CachedAsset cached = cache.getIfPresent("app.js");
+        assertThat(cached).isNotNull();
+        assertThat(cached.eTag()).isEqualTo("\"v1\"");
+        assertThat(Files.readAllBytes(cached.file())).isEqualTo(body);
+        verify(objectStorageService, never()).openDownload("app.js");
+    }
+
+    @Test
+    void fillWhileStreaming_shouldLeaveNothingBehindWhenTheClientStopsEarly() throws Exception {
+        DiskAssetCache cache = cache(100, 100);
+        byte[] body = "0123456789".getBytes(StandardCharsets.UTF_8);
+        ObjectDownload download = new ObjectDownload(new ByteArrayInputStream(body), body.length);
+
+        try (ObjectDownload filling = cache.fillWhileStreaming("app.js", download)) {
+            filling.getInputStream().readNBytes(4);
+        }
+
+        assertThat(cache.getIfPresent("app.js")).isNull();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+        // the next client gets to fill it
+        try (ObjectDownload next = cache.fillWhileStreaming("app.js", download)) {
+            assertThat(next).isNotSameAs(download);
+        }
+    }
+
+    @Test
+    void fillWhileStreaming_shouldStreamButNotCacheObjectsOverMaxObjectBytes() throws Exception {
+        DiskAssetCache cache = cache(100, 5);
+        byte[] body = "0123456789".getBytes(StandardCharsets.UTF_8);
+        ObjectDownload download = new ObjectDownload(new ByteArrayInputStream(body), -1);
+
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        try (ObjectDownload filling = cache.fillWhileStreaming("big.bin", download)) {
+            filling.transferTo(client);
+        }
+
+        assertThat(client.toByteArray()).isEqualTo(body);
+        assertThat(cache.getIfPresent("big.bin")).isNull();
+        assertThat(cache.getUsedBytes()).isZero();
+        assertThat(cache.accepts(10)).isFalse();
+        assertThat(cache.fillWhileStreaming("big.bin", download)).isSameAs(download);
+    }
+
+    @Test
+    void getOrFetch_shouldShareOneFillBetweenConcurrentMisses() throws Exception {
+        DiskAssetCache cache = cache(100, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        when(objectStorageService.openDownload("slow.js")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            byte[] body = "0123456789".getBytes(StandardCharsets.UTF_8);
+            return new ObjectDownload(new ByteArrayInputStream(body), body.length);
+        });
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<DiskAssetCache.CachedAsset> first = callers.submit(() -> cache.getOrFetch("slow.js"));
+            Future<DiskAssetCache.CachedAsset> second = callers.submit(() -> cache.getOrFetch("slow.js"));
+            while (meterRegistry.get("single-flight.collapsed").tag("name", "disk-cache").counter().count() < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(second.get(5, TimeUnit.SECONDS));
+        } finally {
+            callers.shutdownNow();
+        }
+        verify(objectStorageService, times(1)).openDownload("slow.js");
+    }
+
+    private DiskAssetCache cache(long maxBytes, long maxObjectBytes) throws Exception {
+        DiskAssetCache cache = new DiskAssetCache(objectStorageService, true, directory.toString(),
+                maxBytes, maxObjectBytes, meterRegistry);
+        cache.initialize();
+        return cache;
+    }
+
+    private void stub(String objectName, String content) throws Exception {
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        when(objectStorageService.openDownload(objectName))
+                .thenAnswer(invocation -> new ObjectDownload(new ByteArrayInputStream(body), body.length));
+    }
+
+    private long blobFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().matches("[a-f0-9]{64}")).count();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.arcadex.api.game.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileServingPolicyTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FileServingPolicy policy = new FileServingPolicy(true, 1000, "games/media/", 900, meterRegistry);
+
+    @Test
+    void shouldRedirect_shouldApplyToLargeObjectsAndConfiguredPrefixes() {
+        assertThat(policy.shouldRedirect("games/g/level.bin", 1000)).isTrue();
+        assertThat(policy.shouldRedirect("games/media/intro.mp4", 10)).isTrue();
+        assertThat(policy.shouldRedirect("games/g/app.js", 999)).isFalse();
+        assertThat(policy.shouldRedirect("games/g/app.js", -1)).isFalse();
+    }
+
+    @Test
+    void recordNotModified_shouldNotCountAsProxied() {
+        policy.recordProxied(100);
+        policy.recordNotModified();
+        policy.recordNotModified();
+
+        assertThat(requests("proxy")).isEqualTo(1.0);
+        assertThat(requests("not-modified")).isEqualTo(2.0);
+        assertThat(meterRegistry.get("files.served.bytes").tag("mode", "proxy").counter().count()).isEqualTo(100.0);
+    }
+
+    private double requests(String mode) {
+        return meterRegistry.get("files.served.requests").tag("mode", mode).counter().count();
+    }
+}
@@ -0,0 +1,89 @@
+package com.arcadex.api.game.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GameArchiveScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void scan_shouldAcceptRegularEntriesAndSkipJunk() throws IOException {
+        Path zip = zip(Map.of(
+                "index.html", "<html></html>".getBytes(StandardCharsets.UTF_8),
+                "js/game.js", "console.log(1)".getBytes(StandardCharsets.UTF_8),
+                "__MACOSX/._index.html", new byte[]{1},
+                "../escape.txt", new byte[]{1}));
+
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            List<GameArchiveScanner.ScannedEntry> entries = GameArchiveScanner.scan(zipFile);
+
+            assertThat(entries).extracting(GameArchiveScanner.ScannedEntry::path)
+                    .containsExactlyInAnyOrder("index.html", "js/game.js");
+        }
+    }
+
+    @Test
+    void scan_shouldRejectTooManyEntries() throws IOException {
+        Path zip = tempDir.resolve("many.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            for (int i = 0; i <= GameArchiveScanner.MAX_ENTRY_COUNT; i++) {
+                out.putNextEntry(new ZipEntry("file" + i + ".txt"));
+                out.write('x');
+                out.closeEntry();
+            }
+        }
+
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            assertThatThrownBy(() -> GameArchiveScanner.scan(zipFile))
+                    .isInstanceOf(InvalidGameArchiveException.class)
+                    .hasMessageContaining("too many entries");
+        }
+    }
+
+    @Test
+    void scan_shouldRejectHighlyCompressedEntry() throws IOException {
+        Path zip = zip(Map.of("bomb.bin", new byte[8 * 1024 * 1024]));
+
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            assertThatThrownBy(() -> GameArchiveScanner.scan(zipFile))
+                    .isInstanceOf(InvalidGameArchiveException.class)
+                    .hasMessageContaining("compression ratio");
+        }
+    }
+
+    @Test
+    void sanitizeEntryName_shouldRejectTraversalAndAbsolutePaths() {
+        assertThat(GameArchiveScanner.sanitizeEntryName("assets/./sprite.png")).isEqualTo("assets/sprite.png");
+        assertThat(GameArchiveScanner.sanitizeEntryName("../etc/passwd")).isNull();
+        assertThat(GameArchiveScanner.sanitizeEntryName("/etc/passwd")).isNull();
+        assertThat(GameArchiveScanner.sanitizeEntryName("assets\\sprite.png")).isNull();
+    }
+
+    private Path zip(Map<String, byte[]> entries) throws IOException {
+        Path zip = Files.createTempFile(tempDir, "game", ".zip");
+        try (OutputStream file = Files.newOutputStream(zip); ZipOutputStream out = new ZipOutputStream(file)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+        return zip;
+    }
+}
@@ -0,0 +1,54 @@
+package com.arcadex.api.game.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GameBundleTest {
+
+    @Test
+    void writer_shouldProduceIndexAndTrailerThatLocateEachFile() throws IOException {
+        byte[] html = "<html></html>".getBytes(StandardCharsets.UTF_8);
+        byte[] script = "console.log('hi')".getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GameBundle.Writer writer = new GameBundle.Writer(out)) {
+            long htmlOffset = writer.position();
+            writer.write(new ByteArrayInputStream(html));
+            writer.index(new GameBundle.Entry("games/g/index.html", htmlOffset, html.length, "text/html", "h1", null, null));
+
+            long scriptOffset = writer.position();
+            writer.write(new ByteArrayInputStream(script));
+            writer.index(new GameBundle.Entry("games/g/app.js", scriptOffset, script.length,
+                    "application/javascript", "h2", null, null));
+        }
+        byte[] bundle = out.toByteArray();
+
+        GameBundle.Trailer trailer = GameBundle.parseTrailer(
+                Arrays.copyOfRange(bundle, bundle.length - GameBundle.TRAILER_SIZE, bundle.length));
+        List<GameBundle.Entry> entries = GameBundle.parseIndex(Arrays.copyOfRange(bundle,
+                (int) trailer.indexOffset(), (int) trailer.indexOffset() + trailer.indexLength()));
+
+        assertThat(entries).hasSize(2);
+        GameBundle.Entry scriptEntry = entries.get(1);
+        assertThat(scriptEntry.objectName()).isEqualTo("games/g/app.js");
+        assertThat(scriptEntry.gzipSize()).isNull();
+        assertThat(Arrays.copyOfRange(bundle, (int) scriptEntry.offset(), (int) (scriptEntry.offset() + scriptEntry.size())))
+                .isEqualTo(script);
+    }
+
+    @Test
+    void parseTrailer_shouldRejectForeignObjects() {
+        assertThatThrownBy(() -> GameBundle.parseTrailer(new byte[GameBundle.TRAILER_SIZE]))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a game bundle");
+    }
+}
@@ -0,0 +1,80 @@
+package com.arcadex.api.game.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GameCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private GameCache cache;
+
+    @BeforeEach
+    void setUp() {
+        Ticker ticker = now::get;
+        cache = new GameCache(null, null, Duration.ofSeconds(10), Duration.ofSeconds(300), Duration.ofSeconds(60),
+                100, Duration.ofSeconds(30), new SimpleMeterRegistry(), ticker, Runnable::run);
+    }
+
+    private String load() {
+        return "v" + loads.incrementAndGet();
+    }
+
+    @Test
+    void get_shouldServeFreshEntriesWithoutLoading() {
+        assertThat(cache.<String>get("game:1", String.class, this::load)).isEqualTo("v1");
+
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        assertThat(cache.<String>get("game:1", String.class, this::load)).isEqualTo("v1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void get_shouldServeStaleEntriesWhileReloadingThem() {
+        cache.get("game:1", String.class, this::load);
+
+        now.addAndGet(Duration.ofSeconds(20).toNanos());
+
+        assertThat(cache.<String>get("game:1", String.class, this::load)).isEqualTo("v1");
+        assertThat(cache.<String>get("game:1", String.class, this::load)).isEqualTo("v2");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void get_shouldLoadAgainOnceEntriesExpire() {
+        cache.get("game:1", String.class, this::load);
+
+        now.addAndGet(Duration.ofSeconds(301).toNanos());
+
+        assertThat(cache.<String>get("game:1", String.class, this::load)).isEqualTo("v2");
+    }
+
+    @Test
+    void invalidateCatalog_shouldDropOnlyCatalogPages() {
+        cache.get(GameCache.CATALOG_PREFIX + "NEWEST", String.class, this::load);
+        cache.get("game:1", String.class, this::load);
+
+        cache.invalidateCatalog();
+
+        assertThat(cache.<String>get(GameCache.CATALOG_PREFIX + "NEWEST", String.class, this::load)).isEqualTo("v3");
+        assertThat(cache.<String>get("game:1", String.class, this::load)).isEqualTo("v2");
+    }
+
+    @Test
+    void invalidate_shouldDropTheEntry() {
+        cache.get("game:1", String.class, () -> null);
+
+        cache.invalidate("game:1");
+
+        assertThat(cache.<String>get("game:1", String.class, this::load)).isEqualTo("v1");
+    }
+}
@@ -0,0 +1,93 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.dto.GameSummary;
+import com.arcadex.api.game.repository.GameRepository;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GameCatalogServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 1, 12, 0, 0, 123_456_000);
+
+    private final GameRepository gameRepository = Mockito.mock(GameRepository.class);
+    private final GameCache gameCache = new GameCache(null, null, Duration.ofSeconds(10), Duration.ofSeconds(300),
+            Duration.ofSeconds(60), 100, Duration.ofSeconds(30), new SimpleMeterRegistry(), Ticker.systemTicker(),
+            Runnable::run);
+    private final GameCatalogService catalog = new GameCatalogService(gameRepository, gameCache, 2);
+
+    @Test
+    void page_shouldReturnACursorAfterTheLastGameWhenMoreFollow() {
+        when(gameRepository.findSummaries(eq(GameSummary.Field.DEFAULT), isNull(), eq(true), any(), anyLong(), eq(3)))
+                .thenReturn(games(3, 2, 1));
+
+        GameCatalogService.Page page = catalog.page(null, GameCatalogService.Sort.NEWEST, null, null,
+                GameSummary.Field.DEFAULT);
+
+        assertThat(page.games()).extracting(GameSummary::id).containsExactly(3L, 2L);
+        assertThat(page.nextCursor()).isEqualTo(new CatalogCursor(NOW.minusMinutes(2), 2));
+    }
+
+    @Test
+    void page_shouldContinueFromTheCursorWithinTheCategory() {
+        CatalogCursor cursor = new CatalogCursor(NOW, 7);
+        Set<GameSummary.Field> fields = GameSummary.Field.parse("title");
+        when(gameRepository.findSummaries(fields, "puzzle", false, NOW, 7, 6))
+                .thenReturn(games(8, 9));
+
+        GameCatalogService.Page page = catalog.page("puzzle", GameCatalogService.Sort.OLDEST, cursor, 5, fields);
+
+        assertThat(page.games()).extracting(GameSummary::id).containsExactly(8L, 9L);
+        assertThat(page.nextCursor()).isNull();
+        verify(gameRepository).findSummaries(fields, "puzzle", false, NOW, 7, 6);
+    }
+
+    @Test
+    void fields_shouldAlwaysIncludeTheCursorColumnsAndNeverTheDescription() {
+        assertThat(GameSummary.Field.parse(null)).isEqualTo(GameSummary.Field.DEFAULT);
+        assertThat(GameSummary.Field.parse(" gameUrl,TITLE "))
+                .containsExactly(GameSummary.Field.ID, GameSummary.Field.TITLE, GameSummary.Field.GAME_URL,
+                        GameSummary.Field.CREATED_AT);
+        assertThatThrownBy(() -> GameSummary.Field.parse("title,description"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void cursor_shouldSurviveEncoding() {
+        CatalogCursor cursor = new CatalogCursor(NOW, 42);
+
+        assertThat(CatalogCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThatThrownBy(() -> CatalogCursor.decode("not-a-cursor")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void sort_shouldRejectUnknownValues() {
+        assertThat(GameCatalogService.Sort.parse(null)).isEqualTo(GameCatalogService.Sort.NEWEST);
+        assertThat(GameCatalogService.Sort.parse("oldest")).isEqualTo(GameCatalogService.Sort.OLDEST);
+        assertThatThrownBy(() -> GameCatalogService.Sort.parse("popular")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<GameSummary> games(long... ids) {
+        List<GameSummary> games = new ArrayList<>();
+        for (long id : ids) {
+            games.add(new GameSummary(id, "Game " + id, "", null, "puzzle", NOW.minusMinutes(id)));
+        }
+        return games;
+    }
+}
@@ -0,0 +1,88 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.entity.Game;
+import com.arcadex.api.game.repository.GameRepository;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+class GameSearchServiceTest {
+
+    private final GameRepository gameRepository = Mockito.mock(GameRepository.class);
+    private final GameCache gameCache = new GameCache(null, null, Duration.ofSeconds(10), Duration.ofSeconds(300),
+            Duration.ofSeconds(60), 100, Duration.ofSeconds(30), new SimpleMeterRegistry(), Ticker.systemTicker(),
+            Runnable::run);
+    private final GameSearchService search = new GameSearchService(Mockito.mock(NamedParameterJdbcTemplate.class),
+            gameRepository, gameCache, new GameSuggestionIndex(gameRepository, 30, 15, new SimpleMeterRegistry()),
+            "simple", 2);
+
+    @Test
+    void search_shouldRankTitleMatchesFirstAndHighlightThem() {
+        when(gameRepository.findAll()).thenReturn(List.of(
+                game(1, "Hextris", "Rotate the hexagon. Like a puzzle, but faster.", "Arcade"),
+                game(2, "Puzzle <Quest>", "Slide tiles & think.", "Puzzle")));
+
+        GameSearchService.Page page = search.search("  PUZZLE ", 0, null);
+
+        assertThat(page.hits()).extracting(hit -> hit.game().getId()).containsExactly(2L, 1L);
+        assertThat(page.hits().get(0).titleHighlight()).isEqualTo("<mark>Puzzle</mark> &lt;Quest&gt;");
+        assertThat(page.hits().get(0).descriptionHighlight()).isEqualTo("Slide tiles &amp; think.");
+        assertThat(page.hits().get(1).descriptionHighlight())
+                .isEqualTo("Rotate the hexagon. Like a <mark>puzzle</mark>, but faster.");
+        assertThat(page.hasMore()).isFalse();
+    }
+
+    @Test
+    void search_shouldRequireEveryWordAndPage() {
+        List<Game> games = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            games.add(game(id, "Space shooter " + id, "Shoot", "Arcade"));
+        }
+        games.add(game(6, "Space farm", "Grow", "Sim"));
+        when(gameRepository.findAll()).thenReturn(games);
+
+        GameSearchService.Page first = search.search("space shooter", 0, null);
+        GameSearchService.Page last = search.search("space shooter", 2, null);
+
+        assertThat(first.hits()).extracting(hit -> hit.game().getId()).containsExactly(5L, 4L);
+        assertThat(first.hasMore()).isTrue();
+        assertThat(last.hits()).extracting(hit -> hit.game().getId()).containsExactly(1L);
+        assertThat(last.hasMore()).isFalse();
+    }
+
+    @Test
+    void search_shouldSeeGamesSavedAfterTheIndexWasBuilt() {
+        when(gameRepository.findAll()).thenReturn(List.of(game(1, "Hextris", "Hexagons", "Arcade")));
+        assertThat(search.search("runner", 0, null).hits()).isEmpty();
+
+        Game saved = game(2, "Dino runner", "Jump", "Runner");
+        when(gameRepository.findAll()).thenReturn(List.of(game(1, "Hextris", "Hexagons", "Arcade"), saved));
+        gameCache.invalidateCatalog();
+        search.onGameSaved(saved);
+
+        assertThat(search.search("runner", 0, null).hits()).extracting(hit -> hit.game().getId()).containsExactly(2L);
+    }
+
+    @Test
+    void search_shouldRejectBlankOrLongQueries() {
+        assertThatThrownBy(() -> search.search(" ", 0, null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> search.search("a".repeat(GameSearchService.MAX_QUERY_LENGTH + 1), 0, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Game game(long id, String title, String description, String category) {
+        Game game = new Game(title, description, "", "", category);
+        game.setId(id);
+        return game;
+    }
+}
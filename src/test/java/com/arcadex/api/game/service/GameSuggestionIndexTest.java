@@ -0,0 +1,124 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.dto.GameSummary;
+import com.arcadex.api.game.entity.Game;
+import com.arcadex.api.game.repository.GameRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+class GameSuggestionIndexTest {
+
+    private final GameRepository gameRepository = Mockito.mock(GameRepository.class);
+    private final GameSuggestionIndex index = new GameSuggestionIndex(gameRepository, 30, 15, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        when(gameRepository.findSummaries(any(), isNull(), anyBoolean(), any(), anyLong(), anyInt()))
+                .thenReturn(List.of(
+                        GameSummary.of(game(1, "Space Shooter", "Arcade", "/api/files/games/a/index.html")),
+                        GameSummary.of(game(2, "Pokémon Puzzle", "Puzzle", null)),
+                        GameSummary.of(game(3, "Galaxy space farm", "Sim", "/api/files/games/c/index.html"))))
+                .thenReturn(List.of());
+        index.load();
+    }
+
+    @Test
+    void suggest_shouldMatchWordStartsNewestFirst() {
+        assertThat(index.suggest("SPA", 10)).extracting(GameSuggestionIndex.GameSuggestion::id)
+                .containsExactly(3L, 1L);
+        assertThat(index.suggest("space s", 10)).extracting(GameSuggestionIndex.GameSuggestion::id)
+                .containsExactly(1L);
+        assertThat(index.suggest("pace", 10)).isEmpty();
+    }
+
+    @Test
+    void suggest_shouldMatchCategoriesAndIgnoreAccents() {
+        assertThat(index.suggest("pokemon", 10)).extracting(GameSuggestionIndex.GameSuggestion::title)
+                .containsExactly("Pokémon Puzzle");
+        assertThat(index.suggest("arc", 10)).extracting(GameSuggestionIndex.GameSuggestion::id)
+                .containsExactly(1L);
+    }
+
+    @Test
+    void suggest_shouldRankLaunchedGamesFirst() {
+        index.recordLaunch("games/a/index.html");
+        index.recordLaunch("games/a/index.html");
+        index.recordLaunch("games/a/other.js");
+
+        assertThat(index.suggest("spa", 1)).extracting(GameSuggestionIndex.GameSuggestion::id)
+                .containsExactly(1L);
+    }
+
+    @Test
+    void add_shouldIndexNewGamesOnce() {
+        Game game = game(4, "Space race", "Racing", null);
+
+        index.add(game);
+        index.add(game);
+
+        assertThat(index.suggest("space", 10)).extracting(GameSuggestionIndex.GameSuggestion::id)
+                .containsExactly(4L, 3L, 1L);
+    }
+
+    @Test
+    void add_shouldKeepRankingAcrossDeltaMerges() {
+        // enough games to push the delta past its limit several times
+        for (long id = 100; id < 3100; id++) {
+            index.add(game(id, "Space run " + id, "Arcade", null));
+        }
+        index.recordLaunch("games/a/index.html");
+
+        assertThat(index.suggest("space", 3)).extracting(GameSuggestionIndex.GameSuggestion::id)
+                .containsExactly(1L, 3099L, 3098L);
+        assertThat(index.suggest("space run 310", 10)).extracting(GameSuggestionIndex.GameSuggestion::id)
+                .containsExactly(310L);
+    }
+
+    @Test
+    void suggest_shouldPickUpGamesCommittedBehindTheCatchUpCursorOnReconcile() throws Exception {
+        GameRepository repository = Mockito.mock(GameRepository.class);
+        List<Game> committed = new CopyOnWriteArrayList<>(List.of(game(5, "Space Shooter", "Arcade", null)));
+        when(repository.findSummaries(any(), isNull(), eq(false), any(), anyLong(), anyInt())).thenAnswer(invocation -> {
+            LocalDateTime createdAt = invocation.getArgument(3);
+            long id = invocation.getArgument(4);
+            return committed.stream()
+                    .filter(game -> game.getCreatedAt().isAfter(createdAt)
+                            || game.getCreatedAt().equals(createdAt) && game.getId() > id)
+                    .map(GameSummary::of)
+                    .toList();
+        });
+        GameSuggestionIndex reconciling = new GameSuggestionIndex(repository, 0, 0, new SimpleMeterRegistry());
+        reconciling.load();
+
+        // created before the newest game already read, but committed only now
+        committed.add(0, game(1, "Space late", "Arcade", null));
+
+        for (int attempt = 0; attempt < 200 && reconciling.suggest("space", 10).size() < 2; attempt++) {
+            Thread.sleep(10);
+        }
+        assertThat(reconciling.suggest("space", 10)).extracting(GameSuggestionIndex.GameSuggestion::id)
+                .containsExactlyInAnyOrder(5L, 1L);
+    }
+
+    private static Game game(long id, String title, String category, String gameUrl) {
+        Game game = new Game(title, "", "", gameUrl, category);
+        game.setId(id);
+        game.setCreatedAt(LocalDateTime.of(2025, 3, 1, 12, 0).plusMinutes(id));
+        return game;
+    }
+}
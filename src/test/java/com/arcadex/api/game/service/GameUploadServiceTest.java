@@ -0,0 +1,228 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.entity.AssetBlob;
+import com.arcadex.api.game.entity.Game;
+import com.arcadex.api.game.entity.GameAsset;
+import com.arcadex.api.game.repository.GameAssetRepository;
+import com.arcadex.api.game.repository.GameRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GameUploadServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FakeStorageBackend storage = new FakeStorageBackend();
+    private final GameRepository gameRepository = mock(GameRepository.class);
+    private final GameAssetRepository gameAssetRepository = mock(GameAssetRepository.class);
+    private final AssetBlobService assetBlobService = mock(AssetBlobService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private GameUploadService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new GameUploadService(new ObjectStorageService(storage), gameRepository, gameAssetRepository,
+                assetBlobService, transactionTemplate, mock(ThumbnailVariantService.class),
+                mock(GameCatalogService.class), mock(GameSearchService.class), 8, 1024 * 1024, false, meterRegistry);
+
+        when(assetBlobService.findAll(any())).thenReturn(Map.of());
+        when(assetBlobService.dropUnreferenced(any())).thenAnswer(invocation -> {
+            Collection<String> contentHashes = invocation.getArgument(0);
+            return contentHashes.stream().map(AssetBlobService::objectNameOf).toList();
+        });
+        when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Game>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void uploadGame_shouldCancelTheOtherUploadsAndDropStoredBlobsWhenOnePutFails() throws Exception {
+        CountDownLatch slowPutsStarted = new CountDownLatch(2);
+        AtomicInteger interruptedPuts = new AtomicInteger();
+        storage.beforePut = (objectName, content) -> {
+            if (content.startsWith("slow")) {
+                slowPutsStarted.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    interruptedPuts.incrementAndGet();
+                    throw e;
+                }
+            }
+            if (content.equals("broken")) {
+                slowPutsStarted.await(5, TimeUnit.SECONDS);
+                throw new IOException("PUT rejected");
+            }
+        };
+        GameUploadRequest request = request(Map.of(
+                "index.html", "<html></html>",
+                "level1.txt", "slow level 1",
+                "level2.txt", "slow level 2",
+                "broken.txt", "broken"));
+
+        assertThatThrownBy(() -> service.uploadGame(request, UploadProgress.NONE))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("broken.txt")
+                .hasMessageContaining("PUT rejected");
+
+        assertThat(interruptedPuts.get()).isEqualTo(2);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> dropped = ArgumentCaptor.forClass(Collection.class);
+        verify(assetBlobService).dropUnreferenced(dropped.capture());
+        assertThat(dropped.getValue()).containsExactlyInAnyOrder(hashOf("<html></html>"),
+                hashOf("slow level 1"), hashOf("slow level 2"), hashOf("broken"));
+        // the thumbnail and every blob that made it to storage are deleted again
+        assertThat(storage.objects).isEmpty();
+        assertThat(storage.deleted).anyMatch(objectName -> objectName.startsWith("thumbnails/"));
+        verify(transactionTemplate, never()).execute(any());
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+
+    @Test
+    void uploadGame_shouldReferenceStoredBlobsInsteadOfUploadingThemAgain() throws Exception {
+        String engineHash = hashOf("shared engine");
+        when(assetBlobService.findAll(any())).thenReturn(Map.of(engineHash, new AssetBlob(engineHash, 13, 9L, 3)));
+
+        service.uploadGame(request(Map.of("index.html", "<html></html>", "engine.js", "shared engine")),
+                UploadProgress.NONE);
+
+        assertThat(storage.puts).contains(AssetBlobService.objectNameOf(hashOf("<html></html>")));
+        assertThat(storage.puts).doesNotContain(AssetBlobService.objectNameOf(engineHash));
+        verify(assetBlobService, never()).registerBlob(eq(engineHash), anyLong(), any());
+
+        GameAsset engine = savedAssets().stream()
+                .filter(asset -> asset.getObjectName().endsWith("/engine.js"))
+                .findFirst().orElseThrow();
+        assertThat(engine.getStorageObjectName()).isEqualTo(AssetBlobService.objectNameOf(engineHash));
+        assertThat(engine.getGzipSize()).isEqualTo(9L);
+        assertThat(meterRegistry.get("game.upload.blobs").tag("result", "reused").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("game.upload.deduplicated-bytes").counter().count()).isEqualTo(13);
+    }
+
+    @Test
+    void uploadGame_shouldShareOnePutBetweenEntriesWithIdenticalContent() throws Exception {
+        String engineHash = hashOf("same engine");
+        storage.beforePut = (objectName, content) -> {
+            if (content.equals("same engine")) {
+                // hold the first PUT until the second entry has joined it
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (meterRegistry.get("single-flight.collapsed").tag("name", "blob-upload").counter().count() < 1
+                        && System.nanoTime() < deadline) {
+                    Thread.sleep(5);
+                }
+            }
+        };
+
+        service.uploadGame(request(Map.of(
+                "index.html", "<html></html>",
+                "a/engine.js", "same engine",
+                "b/engine.js", "same engine")), UploadProgress.NONE);
+
+        assertThat(storage.puts).containsOnlyOnce(AssetBlobService.objectNameOf(engineHash));
+        verify(assetBlobService, times(1)).registerBlob(eq(engineHash), anyLong(), any());
+        assertThat(savedAssets())
+                .filteredOn(asset -> asset.getObjectName().endsWith("/engine.js"))
+                .extracting(GameAsset::getStorageObjectName)
+                .containsExactly(AssetBlobService.objectNameOf(engineHash), AssetBlobService.objectNameOf(engineHash));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<GameAsset> savedAssets() {
+        ArgumentCaptor<List<GameAsset>> saved = ArgumentCaptor.forClass(List.class);
+        verify(gameAssetRepository).saveAll(saved.capture());
+        return saved.getValue();
+    }
+
+    private GameUploadRequest request(Map<String, String> files) throws IOException {
+        Path archive = tempDir.resolve("game.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                out.putNextEntry(new ZipEntry(file.getKey()));
+                out.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        Path thumbnail = Files.write(tempDir.resolve("thumb.png"), new byte[]{1, 2, 3});
+        return new GameUploadRequest("title", "description", "puzzle", archive, thumbnail,
+                "thumb.png", "image/png", null);
+    }
+
+    private static String hashOf(String content) {
+        return ContentHash.of(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @FunctionalInterface
+    private interface PutHook {
+        void beforePut(String objectName, String content) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Keeps objects in memory and lets a test delay or fail individual PUTs by their content.
+     */
+    private static final class FakeStorageBackend implements StorageBackend {
+
+        final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        final List<String> puts = new CopyOnWriteArrayList<>();
+        final List<String> deleted = new CopyOnWriteArrayList<>();
+        volatile PutHook beforePut = (objectName, content) -> { };
+
+        @Override
+        public void upload(String objectName, InputStreamSource source, long contentLength, String contentType)
+                throws IOException, InterruptedException {
+            byte[] content;
+            try (InputStream in = source.getInputStream()) {
+                content = in.readAllBytes();
+            }
+            beforePut.beforePut(objectName, new String(content, StandardCharsets.UTF_8));
+            puts.add(objectName);
+            objects.put(objectName, content);
+        }
+
+        @Override
+        public ObjectDownload openDownload(String objectName, String rangeHeader) throws IOException {
+            throw new IOException("Not stored: " + objectName);
+        }
+
+        @Override
+        public void delete(String objectName) {
+            deleted.add(objectName);
+            objects.remove(objectName);
+        }
+    }
+}
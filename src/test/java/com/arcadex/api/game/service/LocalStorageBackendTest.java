@@ -0,0 +1,112 @@
+package com.arcadex.api.game.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalStorageBackendTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path root;
+
+    private LocalStorageBackend backend;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        backend = new LocalStorageBackend(root.toString());
+    }
+
+    @Test
+    void upload_shouldStoreTheObjectAndLeaveNoTempFiles() throws Exception {
+        backend.upload("games/g/index.html", CONTENT, "text/html");
+
+        assertThat(Files.readAllBytes(root.resolve("games/g/index.html"))).isEqualTo(CONTENT);
+        try (Stream<Path> files = Files.list(root.resolve("games/g"))) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    void upload_shouldKeepThePreviousObjectWhenTheSourceIsShort() throws Exception {
+        backend.upload("blobs/a", CONTENT, "text/plain");
+
+        assertThatThrownBy(() -> backend.upload("blobs/a", () -> new ByteArrayInputStream(new byte[3]), 20, "text/plain"))
+                .isInstanceOf(IOException.class);
+
+        assertThat(Files.readAllBytes(root.resolve("blobs/a"))).isEqualTo(CONTENT);
+        try (Stream<Path> files = Files.list(root.resolve("blobs"))) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    void openDownload_shouldServeASingleRange() throws Exception {
+        backend.upload("blobs/a", CONTENT, "text/plain");
+
+        try (ObjectDownload download = backend.openDownload("blobs/a", "bytes=2-5")) {
+            assertThat(download.isPartial()).isTrue();
+            assertThat(download.getContentRange()).isEqualTo("bytes 2-5/10");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertThat(download.transferTo(out)).isEqualTo(4);
+            assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("2345");
+        }
+
+        try (ObjectDownload download = backend.openDownload("blobs/a", "bytes=-3");
+             InputStream in = download.getInputStream()) {
+            assertThat(in.readAllBytes()).asString(StandardCharsets.UTF_8).isEqualTo("789");
+        }
+    }
+
+    @Test
+    void openDownload_shouldReturnTheWholeObjectWithValidators() throws Exception {
+        backend.upload("blobs/a", CONTENT, "text/plain");
+
+        try (ObjectDownload download = backend.openDownload("blobs/a", null)) {
+            assertThat(download.isPartial()).isFalse();
+            assertThat(download.getContentLength()).isEqualTo(10);
+            assertThat(download.getETag()).isNotBlank();
+            assertThat(download.getLastModified()).isNotBlank();
+            assertThat(download.getInputStream().readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void openDownload_shouldRejectRangesPastTheEnd() throws Exception {
+        backend.upload("blobs/a", CONTENT, "text/plain");
+
+        assertThatThrownBy(() -> backend.openDownload("blobs/a", "bytes=10-20"))
+                .isInstanceOfSatisfying(ObjectRangeNotSatisfiableException.class,
+                        e -> assertThat(e.getTotalLength()).isEqualTo(10));
+    }
+
+    @Test
+    void upload_shouldRejectNamesOutsideTheStorageDirectory() {
+        assertThatThrownBy(() -> backend.upload("../outside", CONTENT, "text/plain"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("escapes");
+    }
+
+    @Test
+    void delete_shouldIgnoreMissingObjects() throws Exception {
+        backend.upload("blobs/a", CONTENT, "text/plain");
+
+        backend.delete("blobs/a");
+        backend.delete("blobs/a");
+
+        assertThat(root.resolve("blobs/a")).doesNotExist();
+    }
+}
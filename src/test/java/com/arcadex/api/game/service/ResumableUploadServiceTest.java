@@ -0,0 +1,109 @@
+package com.arcadex.api.game.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResumableUploadServiceTest {
+
+    private static final int CHUNK_SIZE = 4;
+
+    private final ResumableUploadService service =
+            new ResumableUploadService(CHUNK_SIZE, 1024, 60, 2, 1500, new SimpleMeterRegistry());
+    private final MockMultipartFile thumbnail =
+            new MockMultipartFile("thumbnail", "thumb.png", "image/png", new byte[]{1, 2, 3});
+
+    @Test
+    void chunksArrivingOutOfOrder_shouldReassembleTheArchive() throws IOException {
+        byte[] archive = "0123456789".getBytes();
+        ResumableUpload upload = service.initiate("title", "description", "puzzle", thumbnail, archive.length);
+        assertThat(upload.getChunkCount()).isEqualTo(3);
+
+        service.writeChunk(upload.getId(), 2, new ByteArrayInputStream(Arrays.copyOfRange(archive, 8, 10)));
+        service.writeChunk(upload.getId(), 0, new ByteArrayInputStream(Arrays.copyOfRange(archive, 0, 4)));
+        assertThat(upload.getReceivedChunks()).containsExactly(0, 2);
+        assertThatThrownBy(() -> service.complete(upload.getId()))
+                .isInstanceOf(IllegalStateException.class);
+
+        service.writeChunk(upload.getId(), 1, new ByteArrayInputStream(Arrays.copyOfRange(archive, 4, 8)));
+        GameUploadRequest request = service.complete(upload.getId()).orElseThrow();
+        try {
+            assertThat(Files.readAllBytes(request.archive())).isEqualTo(archive);
+            assertThat(service.find(upload.getId())).isEmpty();
+        } finally {
+            request.discard();
+        }
+    }
+
+    @Test
+    void writeChunk_shouldRejectWrongLengthWithoutMarkingItReceived() throws IOException {
+        ResumableUpload upload = service.initiate("title", "description", "puzzle", thumbnail, 10);
+        try {
+            assertThatThrownBy(() -> service.writeChunk(upload.getId(), 0, new ByteArrayInputStream(new byte[3])))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> service.writeChunk(upload.getId(), 0, new ByteArrayInputStream(new byte[5])))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            assertThat(upload.getReceivedChunks()).isEmpty();
+        } finally {
+            service.abort(upload.getId());
+        }
+    }
+
+    @Test
+    void initiate_shouldRejectUploadsOverTheSessionAndSpoolLimits() throws IOException {
+        ResumableUpload first = service.initiate("title", "description", "puzzle", thumbnail, 1000);
+        try {
+            assertThatThrownBy(() -> service.initiate("title", "description", "puzzle", thumbnail, 600))
+                    .isInstanceOf(IllegalStateException.class);
+
+            ResumableUpload second = service.initiate("title", "description", "puzzle", thumbnail, 500);
+            service.abort(second.getId());
+            second = service.initiate("title", "description", "puzzle", thumbnail, 10);
+            try {
+                assertThatThrownBy(() -> service.initiate("title", "description", "puzzle", thumbnail, 10))
+                        .isInstanceOf(IllegalStateException.class);
+            } finally {
+                service.abort(second.getId());
+            }
+        } finally {
+            service.abort(first.getId());
+        }
+        assertThat(service.getReservedBytes()).isZero();
+    }
+
+    @Test
+    void complete_shouldKeepTheReservationUntilTheRequestIsDiscarded() throws IOException {
+        ResumableUpload upload = service.initiate("title", "description", "puzzle", thumbnail, 4);
+        service.writeChunk(upload.getId(), 0, new ByteArrayInputStream(new byte[4]));
+
+        GameUploadRequest request = service.complete(upload.getId()).orElseThrow();
+        assertThat(service.getReservedBytes()).isEqualTo(4);
+
+        request.discard();
+        request.discard();
+        assertThat(service.getReservedBytes()).isZero();
+        assertThat(request.archive()).doesNotExist();
+    }
+
+    @Test
+    void purgeExpired_shouldDiscardIdleUploadsAndFreeTheirReservation() throws Exception {
+        ResumableUploadService expiring = new ResumableUploadService(CHUNK_SIZE, 1024, 0, 2, 1500,
+                new SimpleMeterRegistry());
+        ResumableUpload upload = expiring.initiate("title", "description", "puzzle", thumbnail, 1000);
+        Thread.sleep(5);
+
+        expiring.purgeExpired();
+
+        assertThat(expiring.find(upload.getId())).isEmpty();
+        assertThat(expiring.getReservedBytes()).isZero();
+    }
+}
@@ -0,0 +1,111 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.config.http.OutboundHttpClient;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SidecarStorageBackendTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Map<String, AtomicInteger> signings = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> stored = new ConcurrentHashMap<>();
+
+    private HttpServer sidecar;
+    private OutboundHttpClient httpClient;
+    private SidecarStorageBackend backend;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Stands in for both the signing sidecar and the storage the signed URLs point at.
+        sidecar = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        String base = "http://127.0.0.1:" + sidecar.getAddress().getPort();
+        sidecar.createContext("/object-storage/signed-object-url", exchange -> {
+            JsonObject request = new Gson().fromJson(
+                    new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), JsonObject.class);
+            String objectName = request.get("object_name").getAsString();
+            if (objectName.endsWith("/broken")) {
+                respond(exchange, 500, "signing failed");
+                return;
+            }
+            signings.computeIfAbsent(request.get("method").getAsString() + " " + objectName,
+                    key -> new AtomicInteger()).incrementAndGet();
+            JsonObject response = new JsonObject();
+            response.addProperty("signed_url", base + "/storage/" + objectName);
+            respond(exchange, 200, response.toString());
+        });
+        sidecar.createContext("/storage/", exchange -> {
+            stored.put(exchange.getRequestURI().getPath().substring("/storage/".length()),
+                    exchange.getRequestBody().readAllBytes());
+            respond(exchange, 200, "");
+        });
+        sidecar.start();
+
+        httpClient = new OutboundHttpClient(new MockEnvironment(), meterRegistry, 1000, 5000, 1000, 64);
+        backend = new SidecarStorageBackend(httpClient,
+                new SignedUrlCache(1000, 60, meterRegistry), base, meterRegistry);
+        ReflectionTestUtils.setField(backend, "publicObjectSearchPaths", "/bucket/public");
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.shutdown();
+        sidecar.stop(0);
+    }
+
+    @Test
+    void presign_shouldSignEachDistinctObjectOnce() throws Exception {
+        backend.presign(List.of("blobs/a", "blobs/b", "blobs/a"), "PUT");
+        backend.presign(List.of("blobs/a", "blobs/b"), "PUT");
+
+        assertThat(signings).containsOnlyKeys("PUT public/blobs/a", "PUT public/blobs/b");
+        assertThat(signings.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+    }
+
+    @Test
+    void upload_shouldUseThePresignedUrl() throws Exception {
+        backend.presign(List.of("blobs/a"), "PUT");
+
+        backend.upload("blobs/a", "content".getBytes(StandardCharsets.UTF_8), "text/plain");
+
+        assertThat(signings.get("PUT public/blobs/a").get()).isEqualTo(1);
+        assertThat(stored.get("public/blobs/a")).asString(StandardCharsets.UTF_8).isEqualTo("content");
+    }
+
+    @Test
+    void presign_shouldKeepTheOtherSignaturesWhenOneFails() throws Exception {
+        backend.presign(List.of("blobs/a", "blobs/broken", "blobs/b"), "PUT");
+
+        assertThat(signings).containsOnlyKeys("PUT public/blobs/a", "PUT public/blobs/b");
+        assertThatThrownBy(() -> backend.upload("blobs/broken", new byte[1], "text/plain"))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
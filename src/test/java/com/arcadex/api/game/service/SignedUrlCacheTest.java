@@ -0,0 +1,121 @@
+package com.arcadex.api.game.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SignedUrlCacheTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SignedUrlCache cache = new SignedUrlCache(2, Duration.ofSeconds(60), meterRegistry, clock);
+
+    @Test
+    void get_shouldReturnUrlWhileOutsideSafetyMargin() {
+        cache.put("bucket", "public/a.js", "GET", 900, "https://signed/a", clock.instant().plusSeconds(900));
+
+        clock.advance(Duration.ofSeconds(839));
+
+        assertThat(cache.get("bucket", "public/a.js", "GET", 900)).isEqualTo("https://signed/a");
+    }
+
+    @Test
+    void get_shouldMissOnceInsideSafetyMargin() {
+        cache.put("bucket", "public/a.js", "GET", 900, "https://signed/a", clock.instant().plusSeconds(900));
+
+        clock.advance(Duration.ofSeconds(840));
+
+        assertThat(cache.get("bucket", "public/a.js", "GET", 900)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void get_shouldKeepMethodsApart() {
+        cache.put("bucket", "public/a.js", "PUT", 900, "https://signed/put", clock.instant().plusSeconds(900));
+
+        assertThat(cache.get("bucket", "public/a.js", "GET", 900)).isNull();
+        assertThat(cache.get("bucket", "public/a.js", "PUT", 900)).isEqualTo("https://signed/put");
+    }
+
+    @Test
+    void get_shouldNotServeUrlSignedForShorterTtl() {
+        cache.put("bucket", "public/a.js", "GET", 120, "https://signed/short", clock.instant().plusSeconds(120));
+
+        assertThat(cache.get("bucket", "public/a.js", "GET", 900)).isNull();
+        assertThat(cache.get("bucket", "public/a.js", "GET", 120)).isEqualTo("https://signed/short");
+    }
+
+    @Test
+    void get_shouldMissOnceLessThanTheMinimumLifetimeIsLeft() {
+        cache.put("bucket", "public/video.mp4", "GET", 1800, "https://signed/v", clock.instant().plusSeconds(1800));
+
+        clock.advance(Duration.ofSeconds(900));
+        assertThat(cache.get("bucket", "public/video.mp4", "GET", 1800, Duration.ofSeconds(900)))
+                .isEqualTo("https://signed/v");
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(cache.get("bucket", "public/video.mp4", "GET", 1800, Duration.ofSeconds(900))).isNull();
+        assertThat(cache.get("bucket", "public/video.mp4", "GET", 1800)).isEqualTo("https://signed/v");
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsedEntry() {
+        Instant expiresAt = clock.instant().plusSeconds(900);
+        cache.put("bucket", "a", "GET", 900, "https://signed/a", expiresAt);
+        cache.put("bucket", "b", "GET", 900, "https://signed/b", expiresAt);
+        cache.get("bucket", "a", "GET", 900);
+
+        cache.put("bucket", "c", "GET", 900, "https://signed/c", expiresAt);
+
+        assertThat(cache.get("bucket", "a", "GET", 900)).isNotNull();
+        assertThat(cache.get("bucket", "b", "GET", 900)).isNull();
+        assertThat(cache.get("bucket", "c", "GET", 900)).isNotNull();
+    }
+
+    @Test
+    void get_shouldRecordHitsAndMisses() {
+        cache.put("bucket", "a", "GET", 900, "https://signed/a", clock.instant().plusSeconds(900));
+
+        cache.get("bucket", "a", "GET", 900);
+        cache.get("bucket", "missing", "GET", 900);
+        cache.get("bucket", "missing", "GET", 900);
+
+        assertThat(meterRegistry.get("storage.signed-url.cache").tag("result", "hit").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("storage.signed-url.cache").tag("result", "miss").counter().count()).isEqualTo(2.0);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.arcadex.api.game.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+
+    @Test
+    void execute_shouldShareOneLoadBetweenConcurrentCallers() throws Exception {
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("games/a/index.html", () -> {
+                    loads.incrementAndGet();
+                    release.await();
+                    return "content";
+                })));
+            }
+
+            waitUntilCollapsed(callers - 1);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("content");
+            }
+            assertThat(loads.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_shouldLoadAgainOnceThePreviousFlightCompleted() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("key", () -> "v" + loads.incrementAndGet());
+        String second = singleFlight.execute("key", () -> "v" + loads.incrementAndGet());
+
+        assertThat(second).isEqualTo("v2");
+        assertThat(singleFlight.isInFlight("key")).isFalse();
+    }
+
+    @Test
+    void execute_shouldPropagateLoaderFailure() {
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IOException("storage unavailable");
+        })).isInstanceOf(IOException.class).hasMessage("storage unavailable");
+
+        assertThat(singleFlight.isInFlight("key")).isFalse();
+    }
+
+    private void waitUntilCollapsed(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (collapsedCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(collapsedCount()).isEqualTo(expected);
+    }
+
+    private double collapsedCount() {
+        return meterRegistry.get("single-flight.collapsed").tag("name", "test").counter().count();
+    }
+}
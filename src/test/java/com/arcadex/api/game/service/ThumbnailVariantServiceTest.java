@@ -0,0 +1,96 @@
+package com.arcadex.api.game.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThumbnailVariantServiceTest {
+
+    private static final int[] WIDTHS = {160, 320, 640};
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void render_shouldScaleOpaqueImagesToJpegAndSkipWidthsWiderThanTheSource() throws IOException {
+        Path source = writePng(noise(480, 240, false));
+
+        List<ThumbnailVariantService.Variant> variants =
+                ThumbnailVariantService.render(source, Long.MAX_VALUE, WIDTHS);
+
+        assertThat(variants).extracting(ThumbnailVariantService.Variant::width).containsExactly(160, 320);
+        ThumbnailVariantService.Variant small = variants.get(0);
+        assertThat(small.contentType()).isEqualTo("image/jpeg");
+        assertThat(small.extension()).isEqualTo(".jpg");
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(small.content()));
+        assertThat(decoded.getWidth()).isEqualTo(160);
+        assertThat(decoded.getHeight()).isEqualTo(80);
+    }
+
+    @Test
+    void render_shouldKeepTransparentImagesAsPng() throws IOException {
+        Path source = writePng(noise(800, 800, true));
+
+        List<ThumbnailVariantService.Variant> variants =
+                ThumbnailVariantService.render(source, Files.size(source), WIDTHS);
+
+        assertThat(variants).isNotEmpty();
+        assertThat(variants).allSatisfy(variant -> {
+            assertThat(variant.contentType()).isEqualTo("image/png");
+            assertThat(ImageIO.read(new ByteArrayInputStream(variant.content())).getColorModel().hasAlpha()).isTrue();
+        });
+    }
+
+    @Test
+    void render_shouldDropVariantsThatAreNotSmallerThanTheSource() throws IOException {
+        Path source = writePng(noise(480, 240, false));
+
+        assertThat(ThumbnailVariantService.render(source, 1, WIDTHS)).isEmpty();
+    }
+
+    @Test
+    void render_shouldIgnoreFilesThatAreNotImages() throws IOException {
+        Path source = tempDir.resolve("thumbnail.webp");
+        Files.write(source, "not an image".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(ThumbnailVariantService.render(source, Files.size(source), WIDTHS)).isEmpty();
+    }
+
+    private Path writePng(BufferedImage image) throws IOException {
+        Path file = Files.createTempFile(tempDir, "thumbnail-", ".png");
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+
+    private static BufferedImage noise(int width, int height, boolean transparent) {
+        BufferedImage image = new BufferedImage(width, height,
+                transparent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            for (int y = 0; y < height; y += 8) {
+                for (int x = 0; x < width; x += 8) {
+                    graphics.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256),
+                            transparent && x < width / 2 ? 0 : 255));
+                    graphics.fillRect(x, y, 8, 8);
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+}
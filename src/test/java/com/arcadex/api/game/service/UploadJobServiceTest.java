@@ -0,0 +1,161 @@
+package com.arcadex.api.game.service;
+
+import com.arcadex.api.game.entity.Game;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UploadJobServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final GameUploadService gameUploadService = mock(GameUploadService.class);
+    private final AtomicInteger discarded = new AtomicInteger();
+    private final List<UploadJobService> services = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(UploadJobService::shutdown);
+    }
+
+    @Test
+    void submit_shouldMoveTheJobThroughItsStagesAndDiscardTheRequest() throws Exception {
+        Game game = new Game();
+        List<UploadJob.Stage> stages = new CopyOnWriteArrayList<>();
+        when(gameUploadService.uploadGame(any(), any())).thenAnswer(invocation -> {
+            UploadJob job = invocation.getArgument(1);
+            stages.add(job.getStage());
+            job.stage(UploadJob.Stage.SCANNING);
+            job.scanned(2, 20);
+            job.stage(UploadJob.Stage.UPLOADING);
+            job.entryDone(10);
+            job.entryDone(10);
+            job.stage(UploadJob.Stage.SAVING);
+            return game;
+        });
+        UploadJobService service = service(1, 1);
+        GameUploadRequest request = request();
+
+        UploadJob job = service.submit(request);
+        awaitFinished(job);
+
+        assertThat(stages).containsExactly(UploadJob.Stage.QUEUED);
+        assertThat(job.getStage()).isEqualTo(UploadJob.Stage.COMPLETED);
+        assertThat(job.getGame()).isSameAs(game);
+        assertThat(job.getEntriesDone()).isEqualTo(2);
+        assertThat(job.getBytesDone()).isEqualTo(20);
+        assertThat(service.find(job.getId())).containsSame(job);
+        assertDiscarded(request, 1);
+    }
+
+    @Test
+    void submit_shouldFailTheJobAndDiscardTheRequestWhenTheUploadFails() throws Exception {
+        when(gameUploadService.uploadGame(any(), any())).thenThrow(new IOException("PUT rejected"));
+        UploadJobService service = service(1, 1);
+        GameUploadRequest request = request();
+
+        UploadJob job = service.submit(request);
+        awaitFinished(job);
+
+        assertThat(job.getStage()).isEqualTo(UploadJob.Stage.FAILED);
+        assertThat(job.getError()).isEqualTo("Failed to upload game. Please try again.");
+        assertThat(job.getGame()).isNull();
+        assertDiscarded(request, 1);
+    }
+
+    @Test
+    void submit_shouldReportWhyAnArchiveWasRejected() throws Exception {
+        when(gameUploadService.uploadGame(any(), any()))
+                .thenThrow(new InvalidGameArchiveException("Zip file contains too many entries"));
+        UploadJobService service = service(1, 1);
+
+        UploadJob job = service.submit(request());
+        awaitFinished(job);
+
+        assertThat(job.getStage()).isEqualTo(UploadJob.Stage.FAILED);
+        assertThat(job.getError()).isEqualTo("Zip file contains too many entries");
+    }
+
+    @Test
+    void submit_shouldTurnAwayAndDiscardUploadsOnceTheQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(gameUploadService.uploadGame(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new Game();
+        });
+        UploadJobService service = service(1, 1);
+
+        UploadJob running = service.submit(request());
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        UploadJob queued = service.submit(request());
+        GameUploadRequest rejected = request();
+
+        assertThatThrownBy(() -> service.submit(rejected))
+                .isInstanceOf(IllegalStateException.class);
+        assertDiscarded(rejected, 1);
+        assertThat(queued.getStage()).isEqualTo(UploadJob.Stage.QUEUED);
+
+        release.countDown();
+        awaitFinished(running);
+        awaitFinished(queued);
+        assertThat(queued.getStage()).isEqualTo(UploadJob.Stage.COMPLETED);
+        awaitDiscards(3);
+        assertThat(discarded.get()).isEqualTo(3);
+    }
+
+    private UploadJobService service(int concurrency, int queueCapacity) {
+        UploadJobService service = new UploadJobService(gameUploadService, concurrency, queueCapacity, 60,
+                new SimpleMeterRegistry());
+        services.add(service);
+        return service;
+    }
+
+    private GameUploadRequest request() throws IOException {
+        Path archive = Files.createTempFile(tempDir, "game-", ".zip");
+        Path thumbnail = Files.createTempFile(tempDir, "thumb-", ".png");
+        return new GameUploadRequest("title", "description", "puzzle", archive, thumbnail,
+                "thumb.png", "image/png", discarded::incrementAndGet);
+    }
+
+    private void assertDiscarded(GameUploadRequest request, int expectedDiscards) throws InterruptedException {
+        awaitDiscards(expectedDiscards);
+        assertThat(discarded.get()).isEqualTo(expectedDiscards);
+        assertThat(request.archive()).doesNotExist();
+        assertThat(request.thumbnail()).doesNotExist();
+    }
+
+    private void awaitDiscards(int expectedDiscards) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (discarded.get() < expectedDiscards && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitFinished(UploadJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(job.isFinished()).isTrue();
+    }
+}